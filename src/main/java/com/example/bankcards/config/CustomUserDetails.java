@@ -1,5 +1,6 @@
 package com.example.bankcards.config;
 
+import com.example.bankcards.dto.user.UserSnapshot;
 import com.example.bankcards.entity.User;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.GrantedAuthority;
@@ -14,7 +15,16 @@ import java.util.stream.Collectors;
  */
 @RequiredArgsConstructor
 public class CustomUserDetails implements UserDetails {
-    private final User user;
+    private final UserSnapshot user;
+
+    /**
+     * Создает данные пользователя из сущности
+     *
+     * @param user пользователь
+     */
+    public CustomUserDetails(User user) {
+        this(UserSnapshot.from(user));
+    }
 
     /**
      * Возвращает роли пользователя
@@ -23,7 +33,7 @@ public class CustomUserDetails implements UserDetails {
      */
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return user.getRoles().stream()
+        return user.roles().stream()
                 .map(role -> new SimpleGrantedAuthority(role.name()))
                 .collect(Collectors.toList());
     }
@@ -35,7 +45,7 @@ public class CustomUserDetails implements UserDetails {
      */
     @Override
     public String getPassword() {
-        return user.getPassword();
+        return user.password();
     }
 
     /**
@@ -45,7 +55,7 @@ public class CustomUserDetails implements UserDetails {
      */
     @Override
     public String getUsername() {
-        return user.getEmail();
+        return user.email();
     }
 
     /**
@@ -85,6 +95,6 @@ public class CustomUserDetails implements UserDetails {
      */
     @Override
     public boolean isEnabled() {
-        return user.isActive();
+        return user.active();
     }
 }
\ No newline at end of file
@@ -3,8 +3,11 @@ package com.example.bankcards.config;
 import com.example.bankcards.handler.CustomAccessDeniedHandler;
 import com.example.bankcards.handler.CustomAuthenticationEntryPoint;
 import com.example.bankcards.handler.CustomLogoutHandler;
+import com.example.bankcards.security.AdaptiveBCryptPasswordEncoder;
 import com.example.bankcards.security.JwtAuthenticationFilter;
+import com.example.bankcards.security.LoginRateLimitFilter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -15,15 +18,17 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import java.util.Arrays;
+import java.util.Map;
 
 
 /**
@@ -40,6 +45,14 @@ public class SecurityConfiguration {
     private final CustomAccessDeniedHandler accessDeniedHandler;
     private final CustomAuthenticationEntryPoint authenticationEntryPoint;
     private final CustomLogoutHandler customLogoutHandler;
+    private final AdaptiveBCryptPasswordEncoder adaptiveBCryptPasswordEncoder;
+    private final LoginRateLimitFilter loginRateLimitFilter;
+
+    @Value("${server.port:8080}")
+    private int serverPort;
+
+    @Value("${management.server.port:-1}")
+    private int managementPort;
 
     /**
      * Настраивает цепочку фильтров безопасности
@@ -55,6 +68,7 @@ public class SecurityConfiguration {
                 .csrf(AbstractHttpConfigurer::disable)
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .authorizeHttpRequests(auth -> auth
+                        .requestMatchers(managementPortRequest()).permitAll()
                         .requestMatchers(WHITE_LIST_URL).permitAll()
                         .requestMatchers(AUTHENTICATED_URL).authenticated()
                         .requestMatchers(ADMIN_LIST_URL).hasRole("ADMIN")
@@ -67,6 +81,7 @@ public class SecurityConfiguration {
                 )
                 .authenticationProvider(authenticationProvider())
                 .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+                .addFilterBefore(loginRateLimitFilter, JwtAuthenticationFilter.class)
 
                 .logout(logout -> logout
                         .logoutUrl("/api/v1/auth/logout")
@@ -77,6 +92,20 @@ public class SecurityConfiguration {
         return http.build();
     }
 
+    /**
+     * Запросы к actuator на отдельном порту управления. Порт не публикуется наружу, его опрашивает
+     * Prometheus без JWT. Если порт управления не задан или совпадает с основным, actuator
+     * остается за ролью ADMIN.
+     *
+     * @return сопоставитель запросов к порту управления
+     */
+    private RequestMatcher managementPortRequest() {
+        boolean separatePort = managementPort > 0 && managementPort != serverPort;
+        return request -> separatePort
+                && request.getLocalPort() == managementPort
+                && request.getRequestURI().startsWith("/actuator/");
+    }
+
     /**
      * Настраивает CORS конфигурацию
      *
@@ -114,17 +143,22 @@ public class SecurityConfiguration {
         DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
         provider.setPasswordEncoder(passwordEncoder());
         provider.setUserDetailsService(customUserDetailsService);
+        provider.setUserDetailsPasswordService(customUserDetailsService);
         return provider;
     }
 
     /**
-     * Настраивает кодировщик паролей
+     * Настраивает кодировщик паролей: новые хэши пишутся с префиксом {@code {bcrypt}},
+     * хэши без префикса, сохраненные раньше, проверяются тем же BCrypt
      *
-     * @return BCrypt кодировщик паролей
+     * @return делегирующий кодировщик паролей
      */
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(
+                BCRYPT_ID, Map.of(BCRYPT_ID, adaptiveBCryptPasswordEncoder));
+        encoder.setDefaultPasswordEncoderForMatches(adaptiveBCryptPasswordEncoder);
+        return encoder;
     }
 
     /**
@@ -139,6 +173,8 @@ public class SecurityConfiguration {
         return authenticationConfiguration.getAuthenticationManager();
     }
 
+    private static final String BCRYPT_ID = "bcrypt";
+
     private static final String[] WHITE_LIST_URL = {
             "/api/v1/auth/authenticate",
             "/api/v1/auth/registration",
@@ -147,9 +183,13 @@ public class SecurityConfiguration {
             "/swagger-ui.html",
             "/v3/api-docs/**",
             "/v3/api-docs",
+            "/actuator/health",
+            "/actuator/health/**",
     };
+    // метрики раскрывают счетчики блокировок входа, лимитов и нагрузку, поэтому actuator на основном порту кроме health - только для ADMIN
     private static final String[] ADMIN_LIST_URL={
-            "/api/v1/admin/**"
+            "/api/v1/admin/**",
+            "/actuator/**"
     };
 
     private static final String[] AUTHENTICATED_URL = {
@@ -1,14 +1,31 @@
 package com.example.bankcards.controller;
 
 import com.example.bankcards.dto.card.CardDto;
+import com.example.bankcards.dto.card.CardLookupRequestDto;
 import com.example.bankcards.dto.card.CardResponseDto;
 import com.example.bankcards.dto.card.CardCvvUpdateResponseDto;
+import com.example.bankcards.dto.page.CursorPageDto;
 import com.example.bankcards.dto.user.AdminUserDto;
+import com.example.bankcards.entity.CardStatus;
 import com.example.bankcards.service.AdminService;
+import com.example.bankcards.service.BulkCardIssueService;
+import com.example.bankcards.service.ExportFormat;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.List;
 
 @RestController
 @RequiredArgsConstructor
@@ -28,6 +45,33 @@ public class AdminController {
         return ResponseEntity.ok(allCard);
     }
 
+    /**
+     * Получает карты по курсору: без OFFSET и подсчета строк, стоимость не растет с глубиной
+     *
+     * @param after курсор из {@code next_cursor} предыдущей страницы
+     * @param limit размер страницы
+     * @return страница с картами
+     */
+    @GetMapping("/cards/keyset")
+    public ResponseEntity<CursorPageDto<CardResponseDto>> getCardsAfter(
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit
+    ) {
+        return ResponseEntity.ok(adminService.getCardsAfter(after, limit));
+    }
+
+    /**
+     * Находит карту по полному номеру
+     *
+     * @param request номер карты
+     * @return информация о карте
+     */
+    @PostMapping("/cards/lookup")
+    public ResponseEntity<CardResponseDto> findCardByNumber(@Valid @RequestBody CardLookupRequestDto request) {
+        CardResponseDto card = adminService.findCardByNumber(request.cardNumber());
+        return ResponseEntity.ok(card);
+    }
+
     /**
      * Одобряет блокировку карты
      *
@@ -52,6 +96,21 @@ public class AdminController {
         return ResponseEntity.ok(users);
     }
 
+    /**
+     * Получает пользователей по курсору: без OFFSET и подсчета строк
+     *
+     * @param after курсор из {@code next_cursor} предыдущей страницы
+     * @param limit размер страницы
+     * @return страница с пользователями
+     */
+    @GetMapping("/users/keyset")
+    public ResponseEntity<CursorPageDto<AdminUserDto>> getUsersAfter(
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit
+    ) {
+        return ResponseEntity.ok(adminService.getUsersAfter(after, limit));
+    }
+
     /**
      * Получает пользователя по идентификатору
      *
@@ -100,6 +159,64 @@ public class AdminController {
         return ResponseEntity.ok(card);
     }
 
+    /**
+     * Массово выпускает карты пользователям из JSON-списка.
+     * Прогресс возвращается построчно в формате NDJSON.
+     *
+     * @param userIds идентификаторы пользователей
+     * @return поток прогресса выпуска
+     */
+    @PostMapping(value = "/cards/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> issueCards(@RequestBody List<Long> userIds) {
+        return ndjson(out -> adminService.issueCards(userIds.iterator(), out));
+    }
+
+    /**
+     * Массово выпускает карты пользователям из CSV, читая его потоком.
+     * Прогресс возвращается построчно в формате NDJSON.
+     *
+     * @param request запрос с CSV идентификаторов пользователей
+     * @return поток прогресса выпуска
+     */
+    @PostMapping(value = "/cards/bulk", consumes = "text/csv")
+    public ResponseEntity<StreamingResponseBody> issueCardsFromCsv(HttpServletRequest request) throws IOException {
+        InputStream in = request.getInputStream();
+        return ndjson(out -> adminService.issueCards(BulkCardIssueService.readCsv(in), out));
+    }
+
+    /**
+     * Выгружает карты одним потоком в NDJSON или CSV
+     *
+     * @param format      {@code ndjson} (по умолчанию) или {@code csv}
+     * @param status      фильтр по статусу карты
+     * @param expiresFrom начало диапазона срока действия (yyyy-MM-dd)
+     * @param expiresTo   конец диапазона срока действия (yyyy-MM-dd)
+     * @return поток выгрузки
+     */
+    @GetMapping("/cards/export")
+    public ResponseEntity<StreamingResponseBody> exportCards(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) CardStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate expiresFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate expiresTo
+    ) {
+        ExportFormat exportFormat = ExportFormat.of(format);
+        return export(exportFormat, "cards",
+                out -> adminService.exportCards(status, expiresFrom, expiresTo, exportFormat, out));
+    }
+
+    /**
+     * Выгружает пользователей одним потоком в NDJSON или CSV
+     *
+     * @param format {@code ndjson} (по умолчанию) или {@code csv}
+     * @return поток выгрузки
+     */
+    @GetMapping("/users/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers(@RequestParam(defaultValue = "ndjson") String format) {
+        ExportFormat exportFormat = ExportFormat.of(format);
+        return export(exportFormat, "users", out -> adminService.exportUsers(exportFormat, out));
+    }
+
     /**
      * Обновляет CVV код карты
      *
@@ -116,4 +233,19 @@ public class AdminController {
         return ResponseEntity.ok(response);
     }
 
+    private ResponseEntity<StreamingResponseBody> export(ExportFormat format, String name, StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(name + "." + format.name().toLowerCase())
+                        .build()
+                        .toString())
+                .body(body);
+    }
+
+    private ResponseEntity<StreamingResponseBody> ndjson(StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
 }
@@ -3,11 +3,13 @@ package com.example.bankcards.controller;
 import com.example.bankcards.dto.card.BalanceResponseDto;
 import com.example.bankcards.dto.card.CardDto;
 import com.example.bankcards.dto.card.CardResponseDto;
+import com.example.bankcards.dto.page.CursorPageDto;
 import com.example.bankcards.dto.transaction.DepositRequestDto;
 import com.example.bankcards.dto.transaction.DepositResponseDto;
 import com.example.bankcards.dto.transaction.MoneyTransactionRequestDto;
 import com.example.bankcards.dto.transaction.MoneyTransactionResponseDto;
 import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.IdempotencyService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -20,7 +22,10 @@ import org.springframework.web.bind.annotation.*;
 @RequiredArgsConstructor
 @RequestMapping("/api/v1/card")
 public class CardController {
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
     private final CardService cardService;
+    private final IdempotencyService idempotencyService;
 
 
     /**
@@ -40,30 +45,53 @@ public class CardController {
      *
      * @param userDetails данные текущего пользователя
      * @param page номер страницы (по умолчанию 0)
+     * @param size размер страницы (по умолчанию 2)
      * @return страница с картами пользователя
      */
     @GetMapping
     public ResponseEntity<Page<CardResponseDto>> getUserCards(
             @AuthenticationPrincipal UserDetails userDetails,
-            @RequestParam(defaultValue = "0") int page
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) Integer size
     ) {
-        var cards = cardService.getAllCardsByUserId(userDetails, page);
+        var cards = cardService.getAllCardsByUserId(userDetails, page, size);
         return ResponseEntity.ok(cards);
     }
 
+    /**
+     * Получает карты текущего пользователя по курсору, без подсчета общего числа карт
+     *
+     * @param userDetails данные текущего пользователя
+     * @param after курсор из {@code next_cursor} предыдущей страницы
+     * @param limit размер страницы
+     * @return страница с картами пользователя
+     */
+    @GetMapping("/keyset")
+    public ResponseEntity<CursorPageDto<CardResponseDto>> getUserCardsAfter(
+            @AuthenticationPrincipal UserDetails userDetails,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit
+    ) {
+        return ResponseEntity.ok(cardService.getCardsByUserAfter(userDetails, after, limit));
+    }
+
     /**
      * Выполняет перевод между картами
      *
      * @param userDetails данные текущего пользователя
      * @param transferDto данные для перевода
+     * @param idempotencyKey ключ идемпотентности: повтор с тем же ключом вернет первый ответ
      * @return информация о выполненной транзакции
      */
     @PostMapping("/transfer")
     public ResponseEntity<MoneyTransactionResponseDto> transfer(
             @AuthenticationPrincipal UserDetails userDetails,
-            @Valid @RequestBody MoneyTransactionRequestDto transferDto
+            @Valid @RequestBody MoneyTransactionRequestDto transferDto,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey
     ) {
-        var response = cardService.transactionBetweenCards(transferDto, userDetails);
+        var response = idempotencyService.execute(idempotencyKey, userDetails.getUsername(), "transfer",
+                transferDto, MoneyTransactionResponseDto.class,
+                () -> cardService.transactionBetweenCards(transferDto, userDetails));
         return ResponseEntity.ok(response);
     }
 
@@ -72,14 +100,18 @@ public class CardController {
      *
      * @param userDetails данные текущего пользователя
      * @param request данные для пополнения
+     * @param idempotencyKey ключ идемпотентности: повтор с тем же ключом вернет первый ответ
      * @return информация о пополнении баланса
      */
     @PostMapping("/deposit")
     public ResponseEntity<DepositResponseDto> deposit(
             @AuthenticationPrincipal UserDetails userDetails,
-            @Valid @RequestBody DepositRequestDto request
+            @Valid @RequestBody DepositRequestDto request,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey
     ) {
-        DepositResponseDto response = cardService.depositToCard(request, userDetails);
+        DepositResponseDto response = idempotencyService.execute(idempotencyKey, userDetails.getUsername(), "deposit",
+                request, DepositResponseDto.class,
+                () -> cardService.depositToCard(request, userDetails));
         return ResponseEntity.ok(response);
     }
 
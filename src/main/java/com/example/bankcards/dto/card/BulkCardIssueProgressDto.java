@@ -0,0 +1,25 @@
+package com.example.bankcards.dto.card;
+
+import java.util.List;
+
+/**
+ * Строка прогресса массового выпуска карт (одна на обработанную пачку)
+ *
+ * @param chunk номер пачки, начиная с 0
+ * @param requested количество пользователей в пачке
+ * @param issued количество выпущенных карт
+ * @param skipped количество пропущенных пользователей, у которых уже есть карта
+ * @param notFound идентификаторы пользователей, которых нет в базе
+ * @param error текст ошибки, если пачка не обработана
+ * @param cards выпущенные карты
+ */
+public record BulkCardIssueProgressDto(
+        int chunk,
+        int requested,
+        int issued,
+        int skipped,
+        List<Long> notFound,
+        String error,
+        List<BulkIssuedCardDto> cards
+) {
+}
@@ -0,0 +1,23 @@
+package com.example.bankcards.dto.card;
+
+/**
+ * Итоговая строка массового выпуска карт
+ *
+ * @param chunks количество обработанных пачек
+ * @param requested количество пользователей в запросе
+ * @param issued количество выпущенных карт
+ * @param skipped количество пропущенных пользователей: уже с картой или повторы во входе
+ * @param notFound количество пользователей, которых нет в базе
+ * @param failed количество пользователей в пачках, завершившихся ошибкой
+ * @param error ошибка чтения запроса, если выпуск остановлен досрочно
+ */
+public record BulkCardIssueSummaryDto(
+        int chunks,
+        int requested,
+        int issued,
+        int skipped,
+        int notFound,
+        int failed,
+        String error
+) {
+}
@@ -0,0 +1,13 @@
+package com.example.bankcards.dto.card;
+
+/**
+ * DTO карты, выпущенной при массовом выпуске
+ *
+ * @param userId идентификатор пользователя
+ * @param card информация о карте
+ */
+public record BulkIssuedCardDto(
+        Long userId,
+        CardDto card
+) {
+}
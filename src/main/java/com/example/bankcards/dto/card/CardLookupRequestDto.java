@@ -0,0 +1,16 @@
+package com.example.bankcards.dto.card;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+
+/**
+ * DTO для поиска карты по номеру
+ *
+ * @param cardNumber полный номер карты
+ */
+public record CardLookupRequestDto(
+        @NotBlank(message = "Required field")
+        @Pattern(regexp = "\\d{16}", message = "The card number must contain 16 digits")
+        String cardNumber
+) {
+}
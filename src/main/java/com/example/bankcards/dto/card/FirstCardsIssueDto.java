@@ -0,0 +1,16 @@
+package com.example.bankcards.dto.card;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Результат выпуска первых карт для пачки пользователей
+ *
+ * @param cards выпущенные карты по идентификатору пользователя
+ * @param notFound идентификаторы пользователей, которых нет в базе
+ */
+public record FirstCardsIssueDto(
+        Map<Long, CardDto> cards,
+        List<Long> notFound
+) {
+}
@@ -0,0 +1,33 @@
+package com.example.bankcards.dto.page;
+
+import com.example.bankcards.util.CursorUtil;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Страница выборки по курсору
+ *
+ * @param items элементы страницы
+ * @param nextCursor курсор следующей страницы, {@code null} на последней странице
+ */
+public record CursorPageDto<T>(
+        List<T> items,
+        String nextCursor
+) {
+    /**
+     * Собирает страницу из {@code limit + 1} прочитанных строк: лишняя строка означает,
+     * что следующая страница есть, и не попадает в ответ
+     *
+     * @param rows строки, упорядоченные по идентификатору
+     * @param limit размер страницы
+     * @param idOf идентификатор строки
+     * @return страница с курсором на последний элемент
+     */
+    public static <T> CursorPageDto<T> of(List<T> rows, int limit, Function<T, Long> idOf) {
+        if (rows.size() <= limit)
+            return new CursorPageDto<>(rows, null);
+        List<T> items = rows.subList(0, limit);
+        return new CursorPageDto<>(items, CursorUtil.encode(idOf.apply(items.get(limit - 1))));
+    }
+}
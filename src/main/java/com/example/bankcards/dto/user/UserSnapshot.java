@@ -0,0 +1,57 @@
+package com.example.bankcards.dto.user;
+
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+
+import java.util.List;
+
+/**
+ * Неизменяемый снимок пользователя, который хранится в кэше пользователей
+ *
+ * @param id идентификатор пользователя
+ * @param username имя пользователя
+ * @param email email пользователя
+ * @param password хэш пароля
+ * @param active флаг активности пользователя
+ * @param roles роли пользователя
+ */
+public record UserSnapshot(
+        Long id,
+        String username,
+        String email,
+        String password,
+        boolean active,
+        List<Role> roles
+) {
+    /**
+     * Создает снимок из сущности пользователя
+     *
+     * @param user пользователь
+     * @return снимок пользователя
+     */
+    public static UserSnapshot from(User user) {
+        return new UserSnapshot(
+                user.getId(),
+                user.getUsername(),
+                user.getEmail(),
+                user.getPassword(),
+                user.isActive(),
+                user.getRoles() == null ? List.of() : List.copyOf(user.getRoles())
+        );
+    }
+
+    /**
+     * Проверяет, есть ли у пользователя роль
+     *
+     * @param role имя роли, например {@code ROLE_ADMIN}
+     * @return true, если роль есть
+     */
+    public boolean hasRole(String role) {
+        return roles.stream().anyMatch(r -> r.name().equals(role));
+    }
+
+    @Override
+    public String toString() {
+        return "UserSnapshot[id=" + id + ", email=" + email + ", active=" + active + ", roles=" + roles + "]";
+    }
+}
@@ -4,14 +4,17 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 
 /**
- * Сущность банковской карты
+ * Сущность банковской карты.
+ * UPDATE включает только измененные колонки, чтобы смена статуса или CVV не перезаписывала баланс.
  */
 @Entity
+@DynamicUpdate
 @Table(name = "cards")
 @Getter
 @Setter
@@ -22,12 +25,17 @@ import java.time.LocalDate;
 @ToString(exclude = "user")
 public class Card {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cards_seq")
+    @SequenceGenerator(name = "cards_seq", sequenceName = "cards_seq", allocationSize = 50)
     Long id;
 
     @Column(name = "card_number_encrypted", nullable = false, length = 512)
     String encryptedNumber;
 
+    @Column(name = "card_number_fingerprint", unique = true, length = 64)
+    @JsonIgnore
+    String fingerprint;
+
     
     @Column(name = "card_number_last_four", nullable = false, length = 4)
     String lastFourDigits;
@@ -0,0 +1,47 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Запись журнала денежных операций.
+ * Строки только добавляются и пишутся пакетами JDBC ({@code LedgerJdbcRepository}),
+ * поэтому идентификатор выдает сама база.
+ */
+@Entity
+@Immutable
+@Table(name = "transactions")
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class LedgerEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", nullable = false, length = 20)
+    LedgerEntryType type;
+
+    @Column(name = "from_card_id")
+    Long fromCardId;
+
+    @Column(name = "to_card_id", nullable = false)
+    Long toCardId;
+
+    @Column(name = "amount", precision = 19, scale = 2, nullable = false)
+    BigDecimal amount;
+
+    @Column(name = "message", columnDefinition = "TEXT")
+    String message;
+
+    @Column(name = "created_at", nullable = false)
+    LocalDateTime createdAt;
+}
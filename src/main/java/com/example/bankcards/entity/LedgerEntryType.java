@@ -0,0 +1,9 @@
+package com.example.bankcards.entity;
+
+/**
+ * Тип операции в журнале
+ */
+public enum LedgerEntryType {
+    TRANSFER,
+    DEPOSIT
+}
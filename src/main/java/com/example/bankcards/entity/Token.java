@@ -3,6 +3,9 @@ package com.example.bankcards.entity;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
 
 /**
  * Сущность токена аутентификации
@@ -16,12 +19,16 @@ import lombok.*;
 @Builder
 public class Token {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "token_seq")
+    @SequenceGenerator(name = "token_seq", sequenceName = "token_seq", allocationSize = 50)
     private Integer id;
 
     @Column(name = "token", length = 1024)
     private String token;
 
+    @Column(name = "jti", length = 64, unique = true)
+    private String jti;
+
     @Enumerated(value = EnumType.STRING)
     private TokenType tokenType;
 
@@ -29,6 +36,16 @@ public class Token {
 
     private boolean revoked;
 
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
+
+    @Column(name = "revoked_at")
+    private LocalDateTime revokedAt;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+
     @ManyToOne
     @JoinColumn(name = "user_id")
     @JsonIgnore
@@ -4,7 +4,9 @@ import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -22,7 +24,8 @@ import java.util.List;
 @Builder
 public class User {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     @Column(name = "id")
     Long id;
 
@@ -36,7 +39,9 @@ public class User {
     @JsonIgnore
     String password;
 
+    // роли страницы пользователей догружаются одним запросом на пачку, а не по запросу на пользователя
     @ElementCollection(fetch = FetchType.EAGER)
+    @BatchSize(size = 100)
     @CollectionTable(
             name = "user_roles",
             joinColumns = @JoinColumn(name = "user_id")
@@ -68,4 +73,13 @@ public class User {
 
     @Column(name = "isActive")
     boolean isActive;
+
+    @Column(name = "tokens_valid_after")
+    @JsonIgnore
+    LocalDateTime tokensValidAfter;
+
+    @Column(name = "updated_at")
+    @UpdateTimestamp
+    @JsonIgnore
+    LocalDateTime updatedAt;
 }
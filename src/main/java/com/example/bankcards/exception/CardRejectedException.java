@@ -0,0 +1,17 @@
+package com.example.bankcards.exception;
+
+import lombok.Getter;
+
+/**
+ * Операция с картой отклонена из-за данных запроса: карта не найдена, не хватает средств и т.п.
+ * {@code outcome} попадает в тег метрики операции
+ */
+@Getter
+public class CardRejectedException extends IllegalArgumentException {
+    private final String outcome;
+
+    public CardRejectedException(String outcome, String message) {
+        super(message);
+        this.outcome = outcome;
+    }
+}
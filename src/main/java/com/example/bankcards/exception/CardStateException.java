@@ -0,0 +1,17 @@
+package com.example.bankcards.exception;
+
+import lombok.Getter;
+
+/**
+ * Операция с картой отклонена из-за состояния карты: карта неактивна или истекла.
+ * {@code outcome} попадает в тег метрики операции
+ */
+@Getter
+public class CardStateException extends IllegalStateException {
+    private final String outcome;
+
+    public CardStateException(String outcome, String message) {
+        super(message);
+        this.outcome = outcome;
+    }
+}
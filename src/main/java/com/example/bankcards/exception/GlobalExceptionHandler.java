@@ -6,6 +6,7 @@ import io.jsonwebtoken.io.IOException;
 import io.jsonwebtoken.security.SignatureException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
@@ -77,6 +78,26 @@ public class GlobalExceptionHandler {
         return buildResponse(e, HttpStatus.CONFLICT);
     }
 
+    @ExceptionHandler(IdempotencyKeyConflictException.class)
+    public ResponseEntity<?> handlerIdempotencyKeyConflictException(IdempotencyKeyConflictException e) {
+        log.error("Service unavailable due to IdempotencyKeyConflictException: {}", e.getMessage());
+        return buildResponse(e, HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<?> handlerTooManyRequestsException(TooManyRequestsException e) {
+        log.error("Service unavailable due to TooManyRequestsException: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(buildResponse(e, HttpStatus.TOO_MANY_REQUESTS).getBody());
+    }
+
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<?> handlerServiceOverloadedException(ServiceOverloadedException e) {
+        log.error("Service unavailable due to ServiceOverloadedException: {}", e.getMessage());
+        return buildResponse(e, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
 
     @ExceptionHandler(NoHandlerFoundException.class)
     public ResponseEntity<?> handlerNoHandlerFoundException(NoHandlerFoundException e) {
@@ -0,0 +1,11 @@
+package com.example.bankcards.exception;
+
+/**
+ * Ключ идемпотентности уже использован для другого запроса
+ * или запрос с этим ключом еще выполняется
+ */
+public class IdempotencyKeyConflictException extends RuntimeException {
+    public IdempotencyKeyConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.bankcards.exception;
+
+/**
+ * Очередь задач переполнена, запрос нужно повторить позже
+ */
+public class ServiceOverloadedException extends RuntimeException {
+    public ServiceOverloadedException(String message) {
+        super(message);
+    }
+}
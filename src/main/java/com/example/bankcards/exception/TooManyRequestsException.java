@@ -0,0 +1,16 @@
+package com.example.bankcards.exception;
+
+import lombok.Getter;
+
+/**
+ * Превышен лимит запросов; повторить можно через {@code retryAfterSeconds}
+ */
+@Getter
+public class TooManyRequestsException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -1,6 +1,10 @@
 package com.example.bankcards.handler;
 
 import com.example.bankcards.repository.TokenRepository;
+import com.example.bankcards.security.JwtService;
+import com.example.bankcards.security.JwtToken;
+import com.example.bankcards.security.TokenRevocationIndex;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -12,11 +16,14 @@ import org.springframework.security.web.authentication.logout.LogoutSuccessHandl
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.time.LocalDateTime;
 
 @Component
 @RequiredArgsConstructor
 public class CustomLogoutHandler implements LogoutHandler, LogoutSuccessHandler {
     private final TokenRepository tokenRepository;
+    private final JwtService jwtService;
+    private final TokenRevocationIndex revocationIndex;
 
     @Override
     public void logout(HttpServletRequest request, HttpServletResponse response, Authentication authentication) {
@@ -28,12 +35,23 @@ public class CustomLogoutHandler implements LogoutHandler, LogoutSuccessHandler
         }
         jwt = authHeader.substring(7);
 
-        var storedToken = tokenRepository.findByToken(jwt)
+        JwtToken parsedToken;
+        try {
+            parsedToken = jwtService.parse(jwt);
+        } catch (JwtException | IllegalArgumentException e) {
+            return;
+        }
+
+        var storedToken = (parsedToken.jti() != null
+                ? tokenRepository.findByJti(parsedToken.jti())
+                : tokenRepository.findByToken(jwt))
                 .orElse(null);
         if (storedToken != null) {
             storedToken.setExpired(true);
             storedToken.setRevoked(true);
+            storedToken.setRevokedAt(LocalDateTime.now());
             tokenRepository.save(storedToken);
+            revocationIndex.revoke(storedToken.getJti(), storedToken.getExpiresAt());
             SecurityContextHolder.clearContext();
         }
     }
@@ -3,6 +3,7 @@ package com.example.bankcards.mapper;
 import com.example.bankcards.dto.auth.RegistrationRequest;
 import com.example.bankcards.dto.user.AdminUserDto;
 import com.example.bankcards.dto.user.UserDto;
+import com.example.bankcards.dto.user.UserSnapshot;
 import com.example.bankcards.entity.Role;
 import com.example.bankcards.entity.User;
 import org.mapstruct.Mapper;
@@ -12,6 +13,8 @@ import org.mapstruct.Mapping;
 public interface UserMapper {
     UserDto toDto(User user);
 
+    UserDto toDto(UserSnapshot snapshot);
+
     User toEntity(UserDto dto);
 
     @Mapping(target = "id", ignore = true)
@@ -0,0 +1,62 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.Card;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.util.List;
+
+/**
+ * Пакетная вставка карт через JDBC, минуя контекст персистентности.
+ * Идентификаторы берутся из {@code cards_seq} блоками по {@link #ID_ALLOCATION_SIZE},
+ * как это делает Hibernate (pooled-lo), - один запрос на всю пачку.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CardJdbcRepository {
+    static final int ID_ALLOCATION_SIZE = 50;
+
+    private static final String INSERT_SQL = """
+            INSERT INTO cards (id, card_number_encrypted, card_number_fingerprint, card_number_last_four, user_id,
+                               cvv_encrypted, expiration_date, status, balance)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${application.card.insert-batch-size:500}")
+    private int batchSize;
+
+    /**
+     * Вставляет карты пакетами и заполняет у них идентификаторы
+     *
+     * @param cards карты с заполненным {@code user}
+     */
+    public void insertAll(List<Card> cards) {
+        if (cards.isEmpty())
+            return;
+        assignIds(cards);
+        jdbcTemplate.batchUpdate(INSERT_SQL, cards, batchSize, (ps, card) -> {
+            ps.setLong(1, card.getId());
+            ps.setString(2, card.getEncryptedNumber());
+            ps.setString(3, card.getFingerprint());
+            ps.setString(4, card.getLastFourDigits());
+            ps.setLong(5, card.getUser().getId());
+            ps.setString(6, card.getEncryptedCvv());
+            ps.setDate(7, Date.valueOf(card.getExpirationDate()));
+            ps.setString(8, card.getStatus().name());
+            ps.setBigDecimal(9, card.getBalance());
+        });
+    }
+
+    private void assignIds(List<Card> cards) {
+        int blocks = (cards.size() + ID_ALLOCATION_SIZE - 1) / ID_ALLOCATION_SIZE;
+        List<Long> starts = jdbcTemplate.queryForList(
+                "SELECT nextval('cards_seq') FROM generate_series(1, ?)", Long.class, blocks);
+        for (int i = 0; i < cards.size(); i++)
+            cards.get(i).setId(starts.get(i / ID_ALLOCATION_SIZE) + i % ID_ALLOCATION_SIZE);
+    }
+}
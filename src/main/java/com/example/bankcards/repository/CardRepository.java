@@ -1,20 +1,144 @@
 package com.example.bankcards.repository;
 
+import com.example.bankcards.dto.card.BalanceResponseDto;
+import com.example.bankcards.dto.card.CardResponseDto;
 import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.repository.projection.CardBalanceView;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface CardRepository extends JpaRepository<Card, Long> {
+    String EXPORT_FETCH_SIZE = "500";
 
-    Page<Card> findAllByUserId(Long userId, Pageable pageable);
+    /**
+     * Читает страницу карт пользователя сразу в DTO, пользователь находится по email в том же запросе
+     */
+    @Query(value = """
+            select new com.example.bankcards.dto.card.CardResponseDto(
+                c.id, c.lastFourDigits, concat('**** **** **** ', c.lastFourDigits),
+                c.expirationDate, c.status, c.balance)
+            from Card c
+            where c.user.email = :email
+            """,
+            countQuery = "select count(c) from Card c where c.user.email = :email")
+    Page<CardResponseDto> findCardViewsByUserEmail(String email, Pageable pageable);
+
+    /**
+     * Читает карты пользователя по курсору сразу в DTO, без загрузки сущностей и подсчета строк
+     */
+    @Query("""
+            select new com.example.bankcards.dto.card.CardResponseDto(
+                c.id, c.lastFourDigits, concat('**** **** **** ', c.lastFourDigits),
+                c.expirationDate, c.status, c.balance)
+            from Card c
+            where c.user.email = :email and c.id > :afterId
+            order by c.id
+            """)
+    List<CardResponseDto> findCardViewsByUserEmailAfter(String email, Long afterId, Limit limit);
+
+    /**
+     * Читает страницу всех карт сразу в DTO
+     */
+    @Query(value = """
+            select new com.example.bankcards.dto.card.CardResponseDto(
+                c.id, c.lastFourDigits, concat('**** **** **** ', c.lastFourDigits),
+                c.expirationDate, c.status, c.balance)
+            from Card c
+            """,
+            countQuery = "select count(c) from Card c")
+    Page<CardResponseDto> findAllCardViews(Pageable pageable);
+
+    /**
+     * Читает баланс карты пользователя сразу в DTO, пользователь находится по email в том же запросе
+     */
+    @Query("""
+            select new com.example.bankcards.dto.card.BalanceResponseDto(
+                c.id, concat('**** **** **** ', c.lastFourDigits), c.balance)
+            from Card c
+            where c.id = :cardId and c.user.email = :email
+            """)
+    Optional<BalanceResponseDto> findBalanceView(Long cardId, String email);
 
     Page<Card> findAll(Pageable pageable);
 
     Optional<Card> findByIdAndUserId(Long cardId, Long userId);
 
+    /**
+     * Списывает сумму с активной и не истекшей карты пользователя, если на ней достаточно средств
+     *
+     * @return число измененных строк: 1 - списано, 0 - условие не выполнено
+     */
+    @Modifying
+    @Query("""
+            update Card c set c.balance = c.balance - :amount
+            where c.id = :cardId and c.user.id = :userId
+              and c.status = com.example.bankcards.entity.CardStatus.ACTIVE
+              and c.expirationDate >= :today and c.balance >= :amount
+            """)
+    int debit(Long cardId, Long userId, BigDecimal amount, LocalDate today);
+
+    /**
+     * Зачисляет сумму на активную и не истекшую карту пользователя
+     *
+     * @return число измененных строк: 1 - зачислено, 0 - условие не выполнено
+     */
+    @Modifying
+    @Query("""
+            update Card c set c.balance = c.balance + :amount
+            where c.id = :cardId and c.user.id = :userId
+              and c.status = com.example.bankcards.entity.CardStatus.ACTIVE
+              and c.expirationDate >= :today
+            """)
+    int credit(Long cardId, Long userId, BigDecimal amount, LocalDate today);
+
+    @Query("select c.id as id, c.lastFourDigits as lastFourDigits, c.balance as balance from Card c where c.id in :ids")
+    List<CardBalanceView> findBalancesByIdIn(Collection<Long> ids);
+
+    Optional<Card> findByFingerprint(String fingerprint);
+
+    boolean existsByFingerprint(String fingerprint);
+
+    @Query("select distinct c.user.id from Card c where c.user.id in :userIds")
+    List<Long> findUserIdsWithCards(Collection<Long> userIds);
+
+    @Query("select c.fingerprint from Card c where c.fingerprint in :fingerprints")
+    List<String> findExistingFingerprints(Collection<String> fingerprints);
+
+    List<Card> findByFingerprintIsNullAndIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    List<Card> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    /**
+     * Читает карты для выгрузки одним курсором; поток нужно закрыть, вызывать внутри транзакции
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            select c from Card c
+            where (:status is null or c.status = :status)
+              and (:expiresFrom is null or c.expirationDate >= :expiresFrom)
+              and (:expiresTo is null or c.expirationDate <= :expiresTo)
+            order by c.id
+            """)
+    Stream<Card> streamForExport(CardStatus status, LocalDate expiresFrom, LocalDate expiresTo);
+
 }
\ No newline at end of file
@@ -0,0 +1,83 @@
+package com.example.bankcards.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Хранилище ключей идемпотентности и сохраненных ответов.
+ * Ключ резервируется вставкой строки в той же транзакции, что и сама операция:
+ * конкурентный запрос с тем же ключом ждет на первичном ключе, пока первая транзакция
+ * не завершится, и после фиксации получает ее ответ, а после отката выполняет операцию сам.
+ */
+@Repository
+@RequiredArgsConstructor
+public class IdempotencyKeyRepository {
+    private static final String RESERVE_SQL = """
+            INSERT INTO idempotency_key (user_id, idempotency_key, request_hash, created_at, expires_at)
+            VALUES (?, ?, ?, ?, ?)
+            ON CONFLICT DO NOTHING
+            """;
+
+    private static final String DELETE_EXPIRED_SQL = """
+            DELETE FROM idempotency_key WHERE (user_id, idempotency_key) IN (
+                SELECT user_id, idempotency_key FROM idempotency_key WHERE expires_at < ? LIMIT ?
+            )
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Сохраненный запрос по ключу
+     *
+     * @param requestHash хэш тела запроса
+     * @param response    ответ в JSON, {@code null}, пока операция не завершена
+     * @param expiresAt   время, после которого ключ можно использовать заново
+     */
+    public record StoredRequest(String requestHash, String response, LocalDateTime expiresAt) {
+    }
+
+    /**
+     * Резервирует ключ за запросом
+     *
+     * @return {@code true}, если ключ свободен и зарезервирован
+     */
+    public boolean reserve(Long userId, String key, String requestHash, LocalDateTime now, LocalDateTime expiresAt) {
+        return jdbcTemplate.update(RESERVE_SQL, userId, key, requestHash,
+                Timestamp.valueOf(now), Timestamp.valueOf(expiresAt)) == 1;
+    }
+
+    public Optional<StoredRequest> find(Long userId, String key) {
+        return jdbcTemplate.query(
+                "SELECT request_hash, response, expires_at FROM idempotency_key WHERE user_id = ? AND idempotency_key = ?",
+                (rs, rowNum) -> new StoredRequest(
+                        rs.getString("request_hash"),
+                        rs.getString("response"),
+                        rs.getTimestamp("expires_at").toLocalDateTime()
+                ),
+                userId, key
+        ).stream().findFirst();
+    }
+
+    public void complete(Long userId, String key, String response) {
+        jdbcTemplate.update("UPDATE idempotency_key SET response = ? WHERE user_id = ? AND idempotency_key = ?",
+                response, userId, key);
+    }
+
+    public void delete(Long userId, String key) {
+        jdbcTemplate.update("DELETE FROM idempotency_key WHERE user_id = ? AND idempotency_key = ?", userId, key);
+    }
+
+    /**
+     * Удаляет пачку истекших ключей
+     *
+     * @return количество удаленных строк
+     */
+    public int deleteExpired(LocalDateTime now, int limit) {
+        return jdbcTemplate.update(DELETE_EXPIRED_SQL, Timestamp.valueOf(now), limit);
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.LedgerEntry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * Пакетная вставка записей журнала операций через JDBC, минуя контекст персистентности
+ */
+@Repository
+@RequiredArgsConstructor
+public class LedgerJdbcRepository {
+    private static final String INSERT_SQL = """
+            INSERT INTO transactions (type, from_card_id, to_card_id, amount, message, created_at)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${application.ledger.insert-batch-size:500}")
+    private int batchSize;
+
+    /**
+     * Вставляет записи пакетами
+     *
+     * @param entries записи журнала
+     */
+    public void insertAll(List<LedgerEntry> entries) {
+        if (entries.isEmpty())
+            return;
+        jdbcTemplate.batchUpdate(INSERT_SQL, entries, batchSize, (ps, entry) -> {
+            ps.setString(1, entry.getType().name());
+            if (entry.getFromCardId() != null)
+                ps.setLong(2, entry.getFromCardId());
+            else
+                ps.setNull(2, Types.BIGINT);
+            ps.setLong(3, entry.getToCardId());
+            ps.setBigDecimal(4, entry.getAmount());
+            ps.setString(5, entry.getMessage());
+            ps.setTimestamp(6, Timestamp.valueOf(entry.getCreatedAt()));
+        });
+    }
+}
@@ -1,21 +1,33 @@
 package com.example.bankcards.repository;
 
 import com.example.bankcards.entity.Token;
+import com.example.bankcards.repository.projection.RevokedTokenView;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface TokenRepository extends JpaRepository<Token, Integer> {
+    @Modifying
     @Query("""
-            select t from Token t inner join User u on t.user.id = u.id
-            where u.id = :userId and (t.expired = false and t.revoked = false)
+            update Token t set t.expired = true, t.revoked = true, t.revokedAt = :now
+            where t.user.id = :userId and t.revoked = false
             """)
-    List<Token> findAllValidTokensByUser(Integer userId);
-
+    int revokeAllValidTokensByUser(Long userId, LocalDateTime now);
 
     Optional<Token> findByToken(String token);
+
+    Optional<Token> findByJti(String jti);
+
+    @Query("""
+            select t.jti as jti, t.expiresAt as expiresAt from Token t
+            where t.revoked = true and t.jti is not null
+            and t.revokedAt >= :since and t.expiresAt > :now
+            """)
+    List<RevokedTokenView> findRevokedSince(LocalDateTime since, LocalDateTime now);
 }
@@ -1,13 +1,25 @@
 package com.example.bankcards.repository;
 
 import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.projection.TokenWatermarkView;
+import com.example.bankcards.repository.projection.UserChangeView;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -20,6 +32,57 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     boolean existsByUsername(String username);
 
+    @Query("select u.id from User u where u.id in :ids")
+    List<Long> findExistingIds(Collection<Long> ids);
+
+    /**
+     * Блокирует строки пользователей до конца транзакции. Строки берутся по возрастанию id,
+     * поэтому транзакции с пересекающимися наборами ждут друг друга, а не взаимоблокируются
+     *
+     * @return идентификаторы существующих пользователей
+     */
+    @Query(value = "SELECT id FROM users WHERE id IN (:ids) ORDER BY id FOR UPDATE", nativeQuery = true)
+    List<Long> lockByIdIn(Collection<Long> ids);
+
+    /**
+     * Сдвигает отметку отзыва токенов пользователя только вперед: при конкурентных входах
+     * поздняя фиксация с более ранней отметкой не откатывает ее назад
+     *
+     * @return 1, если отметка обновлена, иначе 0
+     */
+    @Modifying
+    @Query("""
+            update User u set u.tokensValidAfter = :validAfter
+            where u.id = :userId and (u.tokensValidAfter is null or u.tokensValidAfter < :validAfter)
+            """)
+    int updateTokensValidAfter(Long userId, LocalDateTime validAfter);
+
+    @Modifying
+    @Query("update User u set u.password = :password where u.email = :email")
+    int updatePassword(String email, String password);
+
+    @Query("""
+            select u.email as email, u.tokensValidAfter as tokensValidAfter from User u
+            where u.tokensValidAfter >= :since
+            """)
+    List<TokenWatermarkView> findTokenWatermarksSince(LocalDateTime since);
+
+    @Query("select u.id as id, u.email as email from User u where u.updatedAt >= :since")
+    List<UserChangeView> findChangedSince(LocalDateTime since);
+
     @EntityGraph(attributePaths = "roles")
     Page<User> findAll(Pageable pageable);
+
+    List<User> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    /**
+     * Читает пользователей с ролями для выгрузки одним курсором; строки упорядочены по id,
+     * чтобы роли одного пользователя шли подряд. Поток нужно закрыть, вызывать внутри транзакции
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = CardRepository.EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select u from User u left join fetch u.roles order by u.id")
+    Stream<User> streamAllForExport();
 }
@@ -0,0 +1,23 @@
+package com.example.bankcards.repository.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * Проекция баланса карты для ответов на пополнение и перевод
+ */
+public interface CardBalanceView {
+    Long getId();
+
+    String getLastFourDigits();
+
+    BigDecimal getBalance();
+
+    /**
+     * Возвращает замаскированный номер карты
+     *
+     * @return замаскированный номер карты
+     */
+    default String getMaskedNumber() {
+        return "**** **** **** " + getLastFourDigits();
+    }
+}
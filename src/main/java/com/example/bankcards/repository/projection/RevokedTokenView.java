@@ -0,0 +1,12 @@
+package com.example.bankcards.repository.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * Проекция отозванного токена для индекса отзыва
+ */
+public interface RevokedTokenView {
+    String getJti();
+
+    LocalDateTime getExpiresAt();
+}
@@ -0,0 +1,12 @@
+package com.example.bankcards.repository.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * Проекция отметки отзыва токенов пользователя для индекса отзыва
+ */
+public interface TokenWatermarkView {
+    String getEmail();
+
+    LocalDateTime getTokensValidAfter();
+}
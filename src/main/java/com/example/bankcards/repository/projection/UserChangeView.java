@@ -0,0 +1,10 @@
+package com.example.bankcards.repository.projection;
+
+/**
+ * Проекция измененного пользователя для сброса кэша снимков пользователей
+ */
+public interface UserChangeView {
+    Long getId();
+
+    String getEmail();
+}
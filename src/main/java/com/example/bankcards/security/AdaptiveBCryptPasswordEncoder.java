@@ -0,0 +1,161 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt с подобранной при старте стоимостью и ограничением одновременных вычислений.
+ * <p>
+ * Если {@code strength} не задана, стоимость подбирается так, чтобы один хэш занимал не больше
+ * {@code target-hash-time} на этом железе, в пределах {@code min-strength}..{@code max-strength}.
+ * {@link #upgradeEncoding} сообщает о любом отличии стоимости сохраненного хэша от текущей,
+ * поэтому после успешного входа пароль перехэшируется и вверх, и вниз.
+ * <p>
+ * Одновременно выполняется не больше {@code max-concurrent-hashes} хэшей, чтобы волна входов
+ * не заняла все ядра; если разрешение не получено за {@code hash-wait-timeout},
+ * запрос отклоняется {@link ServiceOverloadedException} (503).
+ * <p>
+ * Ожидание разрешения пишется в таймер {@code auth.password.hash.wait}, само вычисление -
+ * в {@code auth.password.hash} с тегами {@code operation} ({@code encode}, {@code match})
+ * и {@code outcome} ({@code success}, {@code mismatch}).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AdaptiveBCryptPasswordEncoder implements PasswordEncoder {
+    private static final Pattern BCRYPT_STRENGTH = Pattern.compile("^\\$2[aby]?\\$(\\d\\d)\\$");
+    private static final String CALIBRATION_PASSWORD = "calibration-password";
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${application.security.password.strength:0}")
+    private int configuredStrength;
+
+    @Value("${application.security.password.target-hash-time:250}")
+    private long targetHashTime;
+
+    @Value("${application.security.password.min-strength:10}")
+    private int minStrength;
+
+    @Value("${application.security.password.max-strength:14}")
+    private int maxStrength;
+
+    @Value("${application.security.password.max-concurrent-hashes:0}")
+    private int maxConcurrentHashes;
+
+    @Value("${application.security.password.hash-wait-timeout:5000}")
+    private long hashWaitTimeout;
+
+    private int strength;
+    private BCryptPasswordEncoder delegate;
+    private Semaphore permits;
+    private Counter rejected;
+    private Timer waitTimer;
+    private Timer encodeTimer;
+    private Timer matchTimer;
+    private Timer mismatchTimer;
+
+    @PostConstruct
+    void init() {
+        strength = configuredStrength > 0 ? configuredStrength : calibrate();
+        delegate = new BCryptPasswordEncoder(strength);
+        int concurrency = maxConcurrentHashes > 0
+                ? maxConcurrentHashes
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        permits = new Semaphore(concurrency, true);
+        rejected = meterRegistry.counter("auth.password.hash.rejected");
+        waitTimer = meterRegistry.timer("auth.password.hash.wait");
+        encodeTimer = meterRegistry.timer("auth.password.hash", "operation", "encode", "outcome", "success");
+        matchTimer = meterRegistry.timer("auth.password.hash", "operation", "match", "outcome", "success");
+        mismatchTimer = meterRegistry.timer("auth.password.hash", "operation", "match", "outcome", "mismatch");
+        meterRegistry.gauge("auth.password.hash.strength", this, encoder -> encoder.strength);
+        meterRegistry.gauge("auth.password.hash.permits.available", permits, Semaphore::availablePermits);
+        log.info("BCrypt strength {}, at most {} concurrent hashes", strength, concurrency);
+    }
+
+    /**
+     * Подбирает стоимость: замеряет хэш с {@code min-strength} и повышает ее,
+     * пока удвоенное время укладывается в {@code target-hash-time}
+     *
+     * @return стоимость BCrypt
+     */
+    int calibrate() {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(minStrength);
+        probe.encode(CALIBRATION_PASSWORD);
+        long start = System.nanoTime();
+        probe.encode(CALIBRATION_PASSWORD);
+        double hashTime = (System.nanoTime() - start) / 1_000_000.0;
+
+        int cost = minStrength;
+        while (cost < maxStrength && hashTime * 2 <= targetHashTime) {
+            cost++;
+            hashTime *= 2;
+        }
+        log.info("Calibrated BCrypt strength {} (~{} ms per hash, target {} ms)", cost, Math.round(hashTime), targetHashTime);
+        return cost;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return guarded(() -> {
+            long start = System.nanoTime();
+            String encoded = delegate.encode(rawPassword);
+            encodeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return encoded;
+        });
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return guarded(() -> {
+            long start = System.nanoTime();
+            boolean matched = delegate.matches(rawPassword, encodedPassword);
+            (matched ? matchTimer : mismatchTimer).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return matched;
+        });
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null)
+            return false;
+        Matcher matcher = BCRYPT_STRENGTH.matcher(encodedPassword);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) != strength;
+    }
+
+    private <T> T guarded(Supplier<T> hash) {
+        boolean acquired;
+        long start = System.nanoTime();
+        try {
+            acquired = permits.tryAcquire(hashWaitTimeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (!acquired) {
+            rejected.increment();
+            throw new ServiceOverloadedException("Password hashing is overloaded, try again later");
+        }
+        try {
+            return hash.get();
+        } finally {
+            permits.release();
+        }
+    }
+}
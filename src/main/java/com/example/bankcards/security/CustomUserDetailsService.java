@@ -1,25 +1,51 @@
 package com.example.bankcards.security;
 
 import com.example.bankcards.config.CustomUserDetails;
+import com.example.bankcards.dto.user.UserSnapshot;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.UserChangedEvent;
+import com.example.bankcards.service.UserSnapshotCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
+    private final UserSnapshotCache userSnapshotCache;
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        return userRepository.findByEmail(email).map(CustomUserDetails::new)
+        return userSnapshotCache.getByEmail(email).map(CustomUserDetails::new)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with emails: " + email));
 
     }
+
+    /**
+     * Сохраняет пароль, перехэшированный после успешного входа с текущей стоимостью BCrypt
+     *
+     * @param user        пользователь
+     * @param newPassword новый хэш пароля
+     * @return пользователь с новым хэшем
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        String email = user.getUsername();
+        Long userId = userSnapshotCache.getByEmail(email).map(UserSnapshot::id).orElse(null);
+        userRepository.updatePassword(email, newPassword);
+        eventPublisher.publishEvent(new UserChangedEvent(userId, email));
+        log.debug("Rehashed password for {}", email);
+        return loadUserByUsername(email);
+    }
 }
@@ -1,6 +1,8 @@
 package com.example.bankcards.security;
 
+import com.example.bankcards.dto.user.UserSnapshot;
 import com.example.bankcards.repository.TokenRepository;
+import com.example.bankcards.service.UserSnapshotCache;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -8,15 +10,18 @@ import jakarta.servlet.http.HttpServletResponse;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.List;
 
 @Component
 @RequiredArgsConstructor
@@ -25,6 +30,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtService jwtService;
     private final CustomUserDetailsService customUserDetailsService;
     private final TokenRepository tokenRepository;
+    private final TokenRevocationIndex revocationIndex;
+    private final UserSnapshotCache userSnapshotCache;
+
+    @Value("${application.security.jwt.stateless-authentication:false}")
+    private boolean statelessAuthentication;
 
     @Override
     protected void doFilterInternal(
@@ -36,35 +46,38 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         String authHeader = request.getHeader("Authorization");
         log.debug("Auth header: {}", authHeader);
 
-        String jwt = null;
-        String username = null;
+        JwtToken jwt = null;
 
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            jwt = authHeader.substring(7);
             try {
-                username = jwtService.getUsername(jwt);
-                log.debug("Extracted username: {}", username);
-                List<String> roles = jwtService.getRoles(jwt);
-                log.debug("Extracted roles: {}", roles);
+                jwt = jwtService.parse(authHeader.substring(7));
+                log.debug("Extracted username: {}, roles: {}", jwt.subject(), jwt.roles());
             } catch (Exception e) {
                 log.error("Token validation error: {}", e.getMessage());
                 response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                 return;
             }
+            if (!jwt.isAccessToken()) {
+                log.warn("Rejected non-access token of type: {}", jwt.type());
+                response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                return;
+            }
         }
 
+        String username = jwt == null ? null : jwt.subject();
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
             try {
                 log.info("Attempting to load user by username: {}", username);
-                UserDetails userDetails = customUserDetailsService.loadUserByUsername(username);
+                UserDetails userDetails = statelessAuthentication
+                        ? loadUserFromClaims(jwt)
+                        : customUserDetailsService.loadUserByUsername(username);
 
-                var isTokenValid = tokenRepository.findByToken(jwt)
-                        .map(t -> !t.isExpired() && !t.isRevoked())
-                        .orElse(false);
-                if (jwtService.isTokenValid(jwt, userDetails) && isTokenValid) {
+                if (!userDetails.isEnabled()) {
+                    log.warn("Rejected token of blocked user: {}", username);
+                } else if (jwtService.isTokenValid(jwt, userDetails) && isNotRevoked(jwt)) {
                     UsernamePasswordAuthenticationToken token = new UsernamePasswordAuthenticationToken(
                             userDetails,
-                            null,
+                            jwt,
                             userDetails.getAuthorities()
                     );
                     token.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -81,4 +94,41 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
         filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    /**
+     * Собирает principal из проверенных claims без загрузки пользователя из базы.
+     * Активность и актуальный набор ролей берутся из кэша снимков пользователей:
+     * роль из токена учитывается, только если она все еще есть у пользователя.
+     */
+    private UserDetails loadUserFromClaims(JwtToken jwt) {
+        UserSnapshot snapshot = userSnapshotCache.getByEmail(jwt.subject())
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with emails: " + jwt.subject()));
+
+        var authorities = jwt.roles().stream()
+                .filter(snapshot::hasRole)
+                .map(SimpleGrantedAuthority::new)
+                .toList();
+
+        return User.withUsername(jwt.subject())
+                .password("")
+                .authorities(authorities)
+                .disabled(!snapshot.active())
+                .build();
+    }
+
+    private boolean isNotRevoked(JwtToken jwt) {
+        return switch (revocationIndex.check(jwt)) {
+            case ACTIVE -> true;
+            case REVOKED -> false;
+            case UNKNOWN -> {
+                log.debug("Revocation index has no decision for token, checking database");
+                var storedToken = jwt.jti() != null
+                        ? tokenRepository.findByJti(jwt.jti())
+                        : tokenRepository.findByToken(jwt.value());
+                yield storedToken
+                        .map(t -> !t.isExpired() && !t.isRevoked())
+                        .orElse(false);
+            }
+        };
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.bankcards.security;
+
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+
+import javax.crypto.SecretKey;
+import java.util.*;
+
+/**
+ * Неизменяемый набор ключей подписи JWT: текущий ключ и несколько предыдущих,
+ * доступных по идентификатору {@code kid}
+ *
+ * @param currentKid идентификатор текущего ключа
+ * @param currentKey текущий ключ подписи
+ * @param previous   предыдущие ключи (от новых к старым), принимаемые только для проверки подписи
+ */
+public record JwtKeyRing(
+        String currentKid,
+        SecretKey currentKey,
+        Map<String, SecretKey> previous
+) {
+
+    public JwtKeyRing {
+        Objects.requireNonNull(currentKid, "currentKid");
+        Objects.requireNonNull(currentKey, "currentKey");
+        LinkedHashMap<String, SecretKey> copy = new LinkedHashMap<>(previous);
+        copy.remove(currentKid);
+        previous = Collections.unmodifiableMap(copy);
+    }
+
+    /**
+     * Создает ключ подписи из секрета в формате Base64URL
+     *
+     * @param secret секрет
+     * @return HMAC-ключ
+     */
+    public static SecretKey deriveKey(String secret) {
+        return Keys.hmacShaKeyFor(Decoders.BASE64URL.decode(secret));
+    }
+
+    /**
+     * Ищет ключ для проверки подписи
+     *
+     * @param kid идентификатор ключа из заголовка токена, {@code null} для токенов без {@code kid}
+     * @return ключ или {@code null}, если ключ неизвестен
+     */
+    public SecretKey find(String kid) {
+        if (kid == null || kid.equals(currentKid)) {
+            return currentKey;
+        }
+        return previous.get(kid);
+    }
+
+    /**
+     * Возвращает идентификаторы всех ключей, принимаемых для проверки подписи
+     *
+     * @return список идентификаторов, начиная с текущего
+     */
+    public List<String> acceptedKids() {
+        List<String> kids = new ArrayList<>();
+        kids.add(currentKid);
+        kids.addAll(previous.keySet());
+        return kids;
+    }
+}
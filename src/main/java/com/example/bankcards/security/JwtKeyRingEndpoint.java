@@ -0,0 +1,33 @@
+package com.example.bankcards.security;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Actuator-эндпоинт с ключами подписи JWT, которые принимает узел: по нему проверяется,
+ * что ротация через конфигурацию дошла до всех узлов. Ключи задаются только конфигурацией,
+ * чтобы все узлы и перезапуски видели один и тот же набор.
+ * По умолчанию не публикуется по HTTP, доступен через JMX или явное
+ * включение в {@code management.endpoints.web.exposure.include}.
+ */
+@Component
+@Endpoint(id = "jwtkeys")
+@RequiredArgsConstructor
+public class JwtKeyRingEndpoint {
+    private final JwtService jwtService;
+
+    /**
+     * Возвращает идентификаторы ключей, принимаемых при проверке подписи
+     *
+     * @return текущий и предыдущие идентификаторы ключей
+     */
+    @ReadOperation
+    public Map<String, List<String>> keyIds() {
+        return Map.of("accepted", jwtService.getAcceptedKeyIds());
+    }
+}
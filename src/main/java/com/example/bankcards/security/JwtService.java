@@ -1,54 +1,109 @@
 package com.example.bankcards.security;
 
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SignatureException;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.security.Key;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.function.Function;
-
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Выпуск и проверка JWT.
+ * <p>
+ * Длительность подписи и разбора пишется в таймер {@code auth.jwt} с тегами {@code operation}
+ * ({@code sign}, {@code parse}) и {@code outcome} ({@code success}, {@code expired}, {@code invalid}).
+ */
 @Component
+@RequiredArgsConstructor
 public class JwtService {
-    private static final Logger log = LoggerFactory.getLogger(JwtService.class);
+    static final String JWT_TIMER = "auth.jwt";
+
+    private final MeterRegistry meterRegistry;
 
     @Value("${application.security.jwt.secret-key}")
     private String secretKey;
 
+    @Value("${application.security.jwt.key-id:primary}")
+    private String keyId;
+
+    @Value("${application.security.jwt.previous-keys:}")
+    private List<String> previousKeys;
+
     @Value("${application.security.jwt.expiration}")
     private long jwtExpiration;
 
     @Value("${application.security.jwt.refresh-token.expiration}")
     private long refreshExpiration;
 
+    private JwtKeyRing keyRing;
+
+    private final AtomicLong lastIssuedMicros = new AtomicLong();
+
+    private JwtParser parser;
+
+    private Timer signTimer;
+
+    private Timer parsedTimer;
 
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64URL.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+    private Timer expiredTimer;
+
+    private Timer invalidTimer;
+
+    /**
+     * Один раз вычисляет ключи подписи и собирает потокобезопасный парсер.
+     * Парсер выбирает ключ по заголовку {@code kid}, поэтому после ротации через конфигурацию
+     * токены, подписанные ключами из {@code previous-keys}, продолжают приниматься.
+     */
+    @PostConstruct
+    void init() {
+        Map<String, SecretKey> previous = new LinkedHashMap<>();
+        for (String entry : previousKeys) {
+            if (entry.isBlank())
+                continue;
+            int separator = entry.indexOf(':');
+            if (separator <= 0)
+                throw new IllegalStateException("Previous JWT key must be in 'kid:secret' format");
+            previous.put(entry.substring(0, separator).trim(), JwtKeyRing.deriveKey(entry.substring(separator + 1).trim()));
+        }
+        keyRing = new JwtKeyRing(keyId, JwtKeyRing.deriveKey(secretKey), previous);
+        parser = Jwts.parser()
+                .keyLocator(new KeyRingLocator())
+                .build();
+        signTimer = meterRegistry.timer(JWT_TIMER, "operation", "sign", "outcome", "success");
+        parsedTimer = meterRegistry.timer(JWT_TIMER, "operation", "parse", "outcome", "success");
+        expiredTimer = meterRegistry.timer(JWT_TIMER, "operation", "parse", "outcome", "expired");
+        invalidTimer = meterRegistry.timer(JWT_TIMER, "operation", "parse", "outcome", "invalid");
     }
 
-    public String generateRefreshToken(UserDetails userDetails) {
+    /**
+     * Возвращает идентификаторы ключей, принимаемых при проверке подписи
+     *
+     * @return список идентификаторов, начиная с текущего
+     */
+    public List<String> getAcceptedKeyIds() {
+        return keyRing.acceptedKids();
+    }
+
+    public JwtToken generateRefreshToken(UserDetails userDetails) {
         Map<String, Object> claims = new HashMap<>();
-        claims.put("typ", "refresh_token");
-        claims.put("jti", UUID.randomUUID().toString());
-        return Jwts.builder()
-                .claims(claims)
-                .subject(userDetails.getUsername())
-                .issuedAt(new Date((System.currentTimeMillis())))
-                .expiration(new Date(System.currentTimeMillis() + refreshExpiration))
-                .signWith(getSigningKey())
-                .compact();
+        claims.put("typ", JwtToken.REFRESH_TYPE);
+        return sign(claims, userDetails.getUsername(), refreshExpiration);
     }
 
 
-    public String generateToken(UserDetails userDetails) {
+    public JwtToken generateToken(UserDetails userDetails) {
 
         Map<String, Object> claims = new HashMap<>();
         var roles = userDetails.getAuthorities()
@@ -56,62 +111,89 @@ public class JwtService {
                 .map(GrantedAuthority::getAuthority)
                 .toList();
         claims.put("roles", roles);
+        claims.put("typ", JwtToken.ACCESS_TYPE);
 
-        return Jwts.builder()
-                .claims(claims)
-                .subject(userDetails.getUsername())
-                .issuedAt(new Date(System.currentTimeMillis()))
-                .expiration(new Date(System.currentTimeMillis() + jwtExpiration))
-                .signWith(getSigningKey())
-                .compact();
-    }
-
-    public boolean isTokenValid(String token, UserDetails userDetails) {
-        try {
-            final String username = getUsername(token);
-            return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
-        } catch (ExpiredJwtException e) {
-            log.warn("JWT token expired: {}", e.getMessage());
-        } catch (MalformedJwtException e) {
-            log.warn("Invalid JWT token format: {}", e.getMessage());
-        } catch (SignatureException e) {
-            log.error("JWT signature validation failed: {}", e.getMessage());
-        } catch (Exception e) {
-            log.error("Unexpected signature validation error: {}", e.getMessage());
-        }
-        return false;
-    }
-
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        return sign(claims, userDetails.getUsername(), jwtExpiration);
     }
 
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    private JwtToken sign(Map<String, Object> claims, String subject, long expiration) {
+        long start = System.nanoTime();
+        JwtKeyRing ring = keyRing;
+        long issuedAtMicros = nextIssuedAtMicros();
+        // iat и exp хранятся в секундах; отметка отзыва сравнивается с точным iat_us
+        long now = issuedAtMicros / 1_000_000 * 1000;
+        Claims payload = Jwts.claims()
+                .add(claims)
+                .add(JwtToken.ISSUED_AT_MICROS, issuedAtMicros)
+                .id(UUID.randomUUID().toString())
+                .subject(subject)
+                .issuedAt(new Date(now))
+                .expiration(new Date(now + expiration))
+                .build();
+        String value = Jwts.builder()
+                .header().keyId(ring.currentKid()).and()
+                .claims(payload)
+                .signWith(ring.currentKey())
+                .compact();
+        JwtToken token = JwtToken.from(value, payload);
+        signTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return token;
     }
 
-    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = getAllClaimsFromToken(token);
-        return claimsResolver.apply(claims);
+    /**
+     * Время выпуска в микросекундах, строго возрастающее на узле: токены двух входов подряд
+     * различаются, и отметка отзыва по времени нового токена закрывает все прежние
+     */
+    private long nextIssuedAtMicros() {
+        long now = ChronoUnit.MICROS.between(Instant.EPOCH, Instant.now());
+        return lastIssuedMicros.accumulateAndGet(now, (last, current) -> Math.max(last + 1, current));
     }
 
-
-    public String getUsername(String token) {
-        return getAllClaimsFromToken(token).getSubject();
+    /**
+     * Разбирает токен и проверяет его подпись и срок действия.
+     * Это единственное место, где выполняется проверка подписи.
+     *
+     * @param token строка токена
+     * @return проверенный токен
+     * @throws JwtException если токен поврежден, подпись неверна или срок действия истек
+     */
+    public JwtToken parse(String token) {
+        long start = System.nanoTime();
+        Timer timer = invalidTimer;
+        try {
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            JwtToken parsed = JwtToken.from(token, claims);
+            timer = parsedTimer;
+            return parsed;
+        } catch (ExpiredJwtException e) {
+            timer = expiredTimer;
+            throw e;
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
     }
 
-    @SuppressWarnings("unchecked")
-    public List<String> getRoles(String token) {
-        return getAllClaimsFromToken(token).get("roles", List.class);
+    /**
+     * Проверяет, что токен принадлежит пользователю и не истек.
+     * Повторного разбора токена не происходит.
+     *
+     * @param token       проверенный токен
+     * @param userDetails данные пользователя
+     * @return true, если токен действителен
+     */
+    public boolean isTokenValid(JwtToken token, UserDetails userDetails) {
+        return token.subject() != null
+                && token.subject().equals(userDetails.getUsername())
+                && !token.isExpired(Instant.now());
     }
 
-    private Claims getAllClaimsFromToken(String token) {
-        JwtParserBuilder parser = Jwts.parser();
-        parser.verifyWith(getSigningKey());
-        return parser.build()
-                .parseSignedClaims(token)
-                .getPayload();
+    private class KeyRingLocator extends LocatorAdapter<Key> {
+        @Override
+        protected Key locate(JwsHeader header) {
+            SecretKey key = keyRing.find(header.getKeyId());
+            if (key == null)
+                throw new SignatureException("Unknown JWT signing key id: " + header.getKeyId());
+            return key;
+        }
     }
 }
-
-
@@ -0,0 +1,88 @@
+package com.example.bankcards.security;
+
+import io.jsonwebtoken.Claims;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Проверенный JWT: подпись проверена один раз при разборе,
+ * дальше фильтр и сервисы работают только с этим объектом
+ *
+ * @param value      исходная строка токена
+ * @param subject    email пользователя
+ * @param roles      роли из токена доступа
+ * @param type       тип токена ({@code access_token} или {@code refresh_token})
+ * @param jti        идентификатор токена
+ * @param issuedAt   время выпуска с точностью до микросекунд из claim {@code iat_us},
+ *                   для токенов без него - {@code iat} с точностью до секунды
+ * @param expiration время истечения
+ */
+public record JwtToken(
+        String value,
+        String subject,
+        List<String> roles,
+        String type,
+        String jti,
+        Instant issuedAt,
+        Instant expiration
+) {
+    public static final String ACCESS_TYPE = "access_token";
+    public static final String REFRESH_TYPE = "refresh_token";
+    public static final String ISSUED_AT_MICROS = "iat_us";
+
+    /**
+     * Создает токен из проверенных claims
+     *
+     * @param value  исходная строка токена
+     * @param claims claims после проверки подписи
+     * @return разобранный токен
+     */
+    @SuppressWarnings("unchecked")
+    public static JwtToken from(String value, Claims claims) {
+        List<String> roles = claims.get("roles", List.class);
+        Long issuedAtMicros = claims.get(ISSUED_AT_MICROS, Long.class);
+        Instant issuedAt = issuedAtMicros != null
+                ? Instant.EPOCH.plus(issuedAtMicros, ChronoUnit.MICROS)
+                : claims.getIssuedAt() == null ? null : claims.getIssuedAt().toInstant();
+        return new JwtToken(
+                value,
+                claims.getSubject(),
+                roles == null ? List.of() : List.copyOf(roles),
+                claims.get("typ", String.class),
+                claims.getId(),
+                issuedAt,
+                claims.getExpiration() == null ? null : claims.getExpiration().toInstant()
+        );
+    }
+
+    /**
+     * Проверяет, является ли токен токеном обновления
+     *
+     * @return true для refresh-токена
+     */
+    public boolean isRefreshToken() {
+        return REFRESH_TYPE.equals(type);
+    }
+
+    /**
+     * Проверяет, является ли токен токеном доступа.
+     * Токены доступа, выпущенные до появления claim {@code typ}, считаются токенами доступа.
+     *
+     * @return true для токена доступа
+     */
+    public boolean isAccessToken() {
+        return type == null || ACCESS_TYPE.equals(type);
+    }
+
+    /**
+     * Проверяет, истек ли срок действия токена
+     *
+     * @param now текущее время
+     * @return true, если токен истек
+     */
+    public boolean isExpired(Instant now) {
+        return expiration != null && expiration.isBefore(now);
+    }
+}
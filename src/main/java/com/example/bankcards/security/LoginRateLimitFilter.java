@@ -0,0 +1,56 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.exception.TooManyRequestsException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Отклоняет запросы к {@code /api/v1/auth} сверх лимита адреса клиента с кодом 429,
+ * до разбора тела запроса, обращения к базе и BCrypt.
+ * <p>
+ * Эндпоинт берется из {@code servletPath}: он уже декодирован и нормализован, как путь,
+ * по которому Spring MVC выбирает обработчик. {@code requestURI} не декодируется, и
+ * {@code /api/v1/auth/%61uthenticate} обходил бы лимит.
+ */
+@Component
+@RequiredArgsConstructor
+public class LoginRateLimitFilter extends OncePerRequestFilter {
+    private static final String AUTH_PATH = "/api/v1/auth/";
+
+    private final LoginRateLimiter loginRateLimiter;
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !HttpMethod.POST.matches(request.getMethod()) || !request.getServletPath().startsWith(AUTH_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        String endpoint = request.getServletPath().substring(AUTH_PATH.length());
+        try {
+            loginRateLimiter.checkAddress(endpoint, request.getRemoteAddr());
+        } catch (TooManyRequestsException e) {
+            response.setStatus(429);
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()));
+            response.setContentType("application/json");
+            response.getWriter().write(String.format(
+                    "{\"error\": \"too_many_requests\", \"message\": \"%s\"}", e.getMessage()));
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,271 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.exception.TooManyRequestsException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Ограничение частоты запросов аутентификации.
+ * <p>
+ * Для каждого эндпоинта {@code /api/v1/auth} свой лимит по адресу клиента, для входа - еще
+ * и по email. Лимит - корзина токенов: {@code capacity} запросов подряд, затем
+ * {@code refill-per-minute} в минуту. После {@code lockout.max-failures} неверных паролей
+ * за скользящее окно {@code lockout.window} вход по email блокируется, пока число ошибок
+ * в окне не опустится ниже порога; успешный вход сбрасывает счетчик.
+ * <p>
+ * Корзины и окна меняются через {@code compareAndSet} неизменяемого состояния, без блокировок,
+ * и хранятся в ограниченных по размеру кэшах. Проверка выполняется до обращения к базе и BCrypt.
+ * Отказы считаются в метрике {@code auth.rate-limit.throttled} с тегами {@code endpoint} и {@code reason}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LoginRateLimiter {
+    public static final String AUTHENTICATE = "authenticate";
+    public static final String REGISTRATION = "registration";
+    public static final String REFRESH_TOKEN = "refresh-token";
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${application.security.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${application.security.rate-limit.max-keys:100000}")
+    private long maxKeys;
+
+    @Value("${application.security.rate-limit.authenticate.address-capacity:20}")
+    private int authenticateAddressCapacity;
+
+    @Value("${application.security.rate-limit.authenticate.address-refill-per-minute:60}")
+    private int authenticateAddressRefill;
+
+    @Value("${application.security.rate-limit.authenticate.email-capacity:5}")
+    private int authenticateEmailCapacity;
+
+    @Value("${application.security.rate-limit.authenticate.email-refill-per-minute:10}")
+    private int authenticateEmailRefill;
+
+    @Value("${application.security.rate-limit.registration.address-capacity:5}")
+    private int registrationAddressCapacity;
+
+    @Value("${application.security.rate-limit.registration.address-refill-per-minute:10}")
+    private int registrationAddressRefill;
+
+    @Value("${application.security.rate-limit.refresh-token.address-capacity:20}")
+    private int refreshAddressCapacity;
+
+    @Value("${application.security.rate-limit.refresh-token.address-refill-per-minute:60}")
+    private int refreshAddressRefill;
+
+    @Value("${application.security.rate-limit.lockout.max-failures:10}")
+    private int maxFailures;
+
+    @Value("${application.security.rate-limit.lockout.window:900000}")
+    private long lockoutWindow;
+
+    private Map<String, Limit> addressLimits;
+    private Limit emailLimit;
+    private Cache<String, TokenBucket> addressBuckets;
+    private Cache<String, TokenBucket> emailBuckets;
+    private Cache<String, FailureWindow> failures;
+
+    /**
+     * Лимит корзины токенов
+     *
+     * @param capacity        запросов подряд
+     * @param refillPerMinute пополнение в минуту
+     */
+    private record Limit(int capacity, int refillPerMinute) {
+        double tokensPerNano() {
+            return refillPerMinute / (double) TimeUnit.MINUTES.toNanos(1);
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        addressLimits = Map.of(
+                AUTHENTICATE, new Limit(authenticateAddressCapacity, authenticateAddressRefill),
+                REGISTRATION, new Limit(registrationAddressCapacity, registrationAddressRefill),
+                REFRESH_TOKEN, new Limit(refreshAddressCapacity, refreshAddressRefill)
+        );
+        emailLimit = new Limit(authenticateEmailCapacity, authenticateEmailRefill);
+        addressBuckets = newCache(Duration.ofMinutes(10));
+        emailBuckets = newCache(Duration.ofMinutes(10));
+        failures = newCache(Duration.ofMillis(lockoutWindow * 2));
+    }
+
+    private <V> Cache<String, V> newCache(Duration idle) {
+        return Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(idle)
+                .build();
+    }
+
+    /**
+     * Списывает запрос с лимита адреса клиента
+     *
+     * @param endpoint      эндпоинт: {@link #AUTHENTICATE}, {@link #REGISTRATION} или {@link #REFRESH_TOKEN}
+     * @param clientAddress адрес клиента
+     * @throws TooManyRequestsException если лимит исчерпан
+     */
+    public void checkAddress(String endpoint, String clientAddress) {
+        Limit limit = addressLimits.get(endpoint);
+        if (!enabled || limit == null || clientAddress == null)
+            return;
+        TokenBucket bucket = addressBuckets.get(endpoint + ":" + clientAddress, key -> new TokenBucket(limit));
+        long retryAfter = bucket.tryConsume(limit);
+        if (retryAfter > 0)
+            throw throttled(endpoint, "address", retryAfter);
+    }
+
+    /**
+     * Проверяет блокировку входа по email и списывает попытку с лимита email
+     *
+     * @param email email из запроса
+     * @throws TooManyRequestsException если вход заблокирован или лимит исчерпан
+     */
+    public void checkEmail(String email) {
+        if (!enabled || email == null)
+            return;
+        String key = normalize(email);
+        FailureWindow window = failures.getIfPresent(key);
+        if (window != null) {
+            long retryAfter = window.retryAfter(maxFailures, lockoutWindow);
+            if (retryAfter > 0)
+                throw throttled(AUTHENTICATE, "lockout", retryAfter);
+        }
+        TokenBucket bucket = emailBuckets.get(key, k -> new TokenBucket(emailLimit));
+        long retryAfter = bucket.tryConsume(emailLimit);
+        if (retryAfter > 0)
+            throw throttled(AUTHENTICATE, "email", retryAfter);
+    }
+
+    /**
+     * Учитывает неверный пароль
+     *
+     * @param email email из запроса
+     */
+    public void recordFailure(String email) {
+        if (!enabled || email == null)
+            return;
+        failures.get(normalize(email), key -> new FailureWindow()).record(lockoutWindow);
+    }
+
+    /**
+     * Сбрасывает счетчик ошибок после успешного входа
+     *
+     * @param email email пользователя
+     */
+    public void recordSuccess(String email) {
+        if (email != null)
+            failures.invalidate(normalize(email));
+    }
+
+    private TooManyRequestsException throttled(String endpoint, String reason, long retryAfterNanos) {
+        meterRegistry.counter("auth.rate-limit.throttled", "endpoint", endpoint, "reason", reason).increment();
+        long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(retryAfterNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+        log.warn("Throttled {} request ({}), retry after {} s", endpoint, reason, seconds);
+        return new TooManyRequestsException("Too many requests, try again later", seconds);
+    }
+
+    private static String normalize(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Корзина токенов без блокировок
+     */
+    static final class TokenBucket {
+        private final AtomicReference<State> state;
+
+        private record State(double tokens, long refilledAt) {
+        }
+
+        TokenBucket(Limit limit) {
+            state = new AtomicReference<>(new State(limit.capacity(), System.nanoTime()));
+        }
+
+        /**
+         * @return 0, если токен списан, иначе сколько наносекунд ждать следующего токена
+         */
+        long tryConsume(Limit limit) {
+            while (true) {
+                State current = state.get();
+                long now = System.nanoTime();
+                double tokens = Math.min(limit.capacity(),
+                        current.tokens() + (now - current.refilledAt()) * limit.tokensPerNano());
+                if (tokens < 1) {
+                    if (limit.refillPerMinute() <= 0)
+                        return TimeUnit.MINUTES.toNanos(1);
+                    return (long) Math.ceil((1 - tokens) / limit.tokensPerNano());
+                }
+                if (state.compareAndSet(current, new State(tokens - 1, now)))
+                    return 0;
+            }
+        }
+    }
+
+    /**
+     * Счетчик ошибок в скользящем окне: текущее окно плюс доля предыдущего,
+     * пропорциональная еще не истекшей его части
+     */
+    static final class FailureWindow {
+        private final AtomicReference<State> state = new AtomicReference<>(new State(System.nanoTime(), 0, 0));
+
+        private record State(long windowStart, int current, int previous) {
+            State advance(long now, long windowNanos) {
+                long elapsed = now - windowStart;
+                if (elapsed < windowNanos)
+                    return this;
+                if (elapsed < windowNanos * 2)
+                    return new State(windowStart + windowNanos, 0, current);
+                return new State(now, 0, 0);
+            }
+
+            double count(long now, long windowNanos) {
+                double previousWeight = 1 - (now - windowStart) / (double) windowNanos;
+                return current + previous * Math.max(0, previousWeight);
+            }
+        }
+
+        void record(long windowMillis) {
+            long windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+            while (true) {
+                State current = state.get();
+                State advanced = current.advance(System.nanoTime(), windowNanos);
+                State next = new State(advanced.windowStart(), advanced.current() + 1, advanced.previous());
+                if (state.compareAndSet(current, next))
+                    return;
+            }
+        }
+
+        /**
+         * @return 0, если вход разрешен, иначе сколько наносекунд ждать
+         */
+        long retryAfter(int maxFailures, long windowMillis) {
+            long windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+            long now = System.nanoTime();
+            State current = state.get().advance(now, windowNanos);
+            if (current.count(now, windowNanos) < maxFailures)
+                return 0;
+            long windowEnd = current.windowStart() + windowNanos - now;
+            if (current.current() >= maxFailures)
+                return windowEnd;
+            // порог держится за счет предыдущего окна: его доля убывает на previous / window в наносекунду
+            double excess = current.count(now, windowNanos) - maxFailures;
+            return Math.min(windowEnd, (long) Math.ceil(excess / current.previous() * windowNanos) + 1);
+        }
+    }
+}
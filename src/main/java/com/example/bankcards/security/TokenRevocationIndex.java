@@ -0,0 +1,219 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.repository.TokenRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.repository.projection.RevokedTokenView;
+import com.example.bankcards.repository.projection.TokenWatermarkView;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Индекс отозванных токенов в памяти: отдельные токены по {@code jti} и отметки
+ * "все токены пользователя, выпущенные раньше T, отозваны" по email.
+ * <p>
+ * Заполняется из таблицы {@code token} при старте, обновляется при выходе и отзыве токенов
+ * и периодически догружает отзывы, сделанные другими узлами. Запись удаляется, как только
+ * истекает срок действия самого токена. Пока индекс загружен целиком, ответ на проверку
+ * токена дается без обращения к базе; если индекс переполнен или не загружен, проверка
+ * возвращает {@link Status#UNKNOWN} и вызывающий код идет в базу.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TokenRevocationIndex {
+    private static final Duration SYNC_OVERLAP = Duration.ofSeconds(30);
+
+    private final TokenRepository tokenRepository;
+    private final UserRepository userRepository;
+
+    @Value("${application.security.revocation.max-entries:100000}")
+    private int maxEntries;
+
+    @Value("${application.security.jwt.refresh-token.expiration}")
+    private long refreshExpiration;
+
+    private final Map<String, Instant> revoked = new ConcurrentHashMap<>();
+
+    private final Map<String, Instant> watermarks = new ConcurrentHashMap<>();
+
+    private volatile boolean complete;
+
+    private volatile boolean overflowed;
+
+    private volatile LocalDateTime lastSync;
+
+    /**
+     * Результат проверки токена по индексу
+     */
+    public enum Status {
+        ACTIVE,
+        REVOKED,
+        UNKNOWN
+    }
+
+    /**
+     * Проверяет, отозван ли токен
+     *
+     * @param token проверенный токен
+     * @return статус токена или {@link Status#UNKNOWN}, если индекс не может ответить
+     */
+    public Status check(JwtToken token) {
+        Instant validAfter = watermarks.get(token.subject());
+        if (validAfter != null && token.issuedAt() != null && token.issuedAt().isBefore(validAfter))
+            return Status.REVOKED;
+        if (token.jti() == null)
+            return Status.UNKNOWN;
+        if (revoked.containsKey(token.jti()))
+            return Status.REVOKED;
+        return complete ? Status.ACTIVE : Status.UNKNOWN;
+    }
+
+    /**
+     * Отмечает токен как отозванный
+     *
+     * @param jti       идентификатор токена
+     * @param expiresAt время истечения токена
+     */
+    public void revoke(String jti, Instant expiresAt) {
+        if (jti == null || expiresAt == null || expiresAt.isBefore(Instant.now()))
+            return;
+        if (revoked.size() >= maxEntries) {
+            evictExpired();
+            if (revoked.size() >= maxEntries) {
+                overflowed = true;
+                complete = false;
+                log.warn("Token revocation index is full ({} entries), falling back to database checks", maxEntries);
+                return;
+            }
+        }
+        revoked.put(jti, expiresAt);
+    }
+
+    /**
+     * Отмечает токен как отозванный
+     *
+     * @param jti       идентификатор токена
+     * @param expiresAt время истечения токена
+     */
+    public void revoke(String jti, LocalDateTime expiresAt) {
+        if (expiresAt != null)
+            revoke(jti, expiresAt.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    /**
+     * Отмечает отозванными все токены пользователя, выпущенные раньше указанного момента
+     *
+     * @param subject    email пользователя
+     * @param validAfter момент, начиная с которого токены действительны
+     */
+    public void revokeIssuedBefore(String subject, Instant validAfter) {
+        if (subject == null || validAfter == null || isWatermarkExpired(validAfter, Instant.now()))
+            return;
+        if (watermarks.size() >= maxEntries && !watermarks.containsKey(subject)) {
+            evictExpired();
+            if (watermarks.size() >= maxEntries) {
+                overflowed = true;
+                complete = false;
+                log.warn("Token revocation index is full ({} users), falling back to database checks", maxEntries);
+                return;
+            }
+        }
+        watermarks.merge(subject, validAfter, (current, next) -> next.isAfter(current) ? next : current);
+    }
+
+    /**
+     * Отмечает отозванными все токены пользователя, выпущенные раньше указанного момента
+     *
+     * @param subject    email пользователя
+     * @param validAfter момент, начиная с которого токены действительны
+     */
+    public void revokeIssuedBefore(String subject, LocalDateTime validAfter) {
+        if (validAfter != null)
+            revokeIssuedBefore(subject, validAfter.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    /**
+     * Загружает отозванные и еще не истекшие токены из базы
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reload() {
+        LocalDateTime now = LocalDateTime.now();
+        complete = false;
+        try {
+            revoked.clear();
+            watermarks.clear();
+            overflowed = false;
+            load(now.minusNanos(refreshExpiration * 1_000_000), now);
+            lastSync = now;
+            complete = !overflowed;
+            log.info("Token revocation index loaded: {} entries, complete: {}", revoked.size(), complete);
+        } catch (RuntimeException e) {
+            log.error("Failed to load token revocation index: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Догружает отзывы, сделанные с момента последней синхронизации,
+     * и удаляет записи истекших токенов
+     */
+    @Scheduled(fixedDelayString = "${application.security.revocation.sync-interval:10000}")
+    public void sync() {
+        evictExpired();
+        if (!complete && revoked.size() < maxEntries / 2) {
+            reload();
+            return;
+        }
+        LocalDateTime since = lastSync;
+        if (since == null)
+            return;
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            load(since.minus(SYNC_OVERLAP), now);
+            lastSync = now;
+        } catch (RuntimeException e) {
+            log.error("Failed to sync token revocation index: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Возвращает число записей в индексе
+     *
+     * @return размер индекса
+     */
+    public int size() {
+        return revoked.size() + watermarks.size();
+    }
+
+    private void load(LocalDateTime since, LocalDateTime now) {
+        List<RevokedTokenView> tokens = tokenRepository.findRevokedSince(since, now);
+        tokens.forEach(t -> revoke(t.getJti(), t.getExpiresAt()));
+        List<TokenWatermarkView> users = userRepository.findTokenWatermarksSince(since);
+        users.forEach(u -> revokeIssuedBefore(u.getEmail(), u.getTokensValidAfter()));
+    }
+
+    private void evictExpired() {
+        Instant now = Instant.now();
+        revoked.values().removeIf(expiresAt -> expiresAt.isBefore(now));
+        watermarks.values().removeIf(validAfter -> isWatermarkExpired(validAfter, now));
+    }
+
+    /**
+     * Отметка больше не нужна, когда истекли все выпущенные до нее токены
+     */
+    private boolean isWatermarkExpired(Instant validAfter, Instant now) {
+        return validAfter.plusMillis(refreshExpiration).isBefore(now);
+    }
+}
@@ -3,6 +3,7 @@ package com.example.bankcards.service;
 import com.example.bankcards.dto.card.CardDto;
 import com.example.bankcards.dto.card.CardResponseDto;
 import com.example.bankcards.dto.card.CardCvvUpdateResponseDto;
+import com.example.bankcards.dto.page.CursorPageDto;
 import com.example.bankcards.dto.user.AdminUserDto;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.CardStatus;
@@ -11,13 +12,23 @@ import com.example.bankcards.mapper.CardMapper;
 import com.example.bankcards.mapper.UserMapper;
 import com.example.bankcards.repository.CardRepository;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.util.CursorUtil;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.List;
+
 @Service
 @RequiredArgsConstructor
 public class AdminService {
@@ -26,6 +37,15 @@ public class AdminService {
     private final CardMapper cardMapper;
     private final UserMapper userMapper;
     private final CardService cardService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BulkCardIssueService bulkCardIssueService;
+    private final ExportService exportService;
+
+    @Value("${application.pagination.default-limit:20}")
+    private int defaultLimit;
+
+    @Value("${application.pagination.max-limit:100}")
+    private int maxLimit;
 
     /**
      * Получает все карты с пагинацией
@@ -35,10 +55,33 @@ public class AdminService {
      */
     @Transactional(readOnly = true)
     public Page<CardResponseDto> getAllCard(int page) {
-        Pageable pageable = PageRequest.of(page, 10);
-        Page<Card> cardPage = cardRepository.findAll(pageable);
+        Pageable pageable = PageRequest.of(page, 10, Sort.by("id"));
+
+        return cardRepository.findAllCardViews(pageable);
+    }
+
+    /**
+     * Получает карты по курсору, без подсчета общего числа строк
+     *
+     * @param after курсор предыдущей страницы, {@code null} - первая страница
+     * @param limit размер страницы, не больше {@code application.pagination.max-limit}
+     * @return страница с картами и курсором следующей страницы
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDto<CardResponseDto> getCardsAfter(String after, Integer limit) {
+        int size = CursorUtil.resolveLimit(limit, defaultLimit, maxLimit);
+        List<Card> cards = cardRepository.findByIdGreaterThanOrderByIdAsc(CursorUtil.decode(after), Limit.of(size + 1));
+        return CursorPageDto.of(cards.stream().map(cardMapper::toDto).toList(), size, CardResponseDto::id);
+    }
 
-        return cardPage.map(cardMapper::toDto);
+    /**
+     * Находит карту по полному номеру
+     *
+     * @param cardNumber номер карты
+     * @return информация о карте
+     */
+    public CardResponseDto findCardByNumber(String cardNumber) {
+        return cardService.findCardByNumber(cardNumber);
     }
 
     /**
@@ -78,6 +121,20 @@ public class AdminService {
         return userPage.map(userMapper::toAdminDto);
     }
 
+    /**
+     * Получает пользователей по курсору, без подсчета общего числа строк
+     *
+     * @param after курсор предыдущей страницы, {@code null} - первая страница
+     * @param limit размер страницы, не больше {@code application.pagination.max-limit}
+     * @return страница с пользователями и курсором следующей страницы
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDto<AdminUserDto> getUsersAfter(String after, Integer limit) {
+        int size = CursorUtil.resolveLimit(limit, defaultLimit, maxLimit);
+        List<User> users = userRepository.findByIdGreaterThanOrderByIdAsc(CursorUtil.decode(after), Limit.of(size + 1));
+        return CursorPageDto.of(users.stream().map(userMapper::toAdminDto).toList(), size, AdminUserDto::id);
+    }
+
     /**
      * Получает пользователя по идентификатору
      *
@@ -107,6 +164,7 @@ public class AdminService {
 
         user.setActive(false);
         userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(user.getId(), user.getEmail()));
 
         return userMapper.toAdminDto(user);
     }
@@ -128,6 +186,7 @@ public class AdminService {
 
         user.setActive(true);
         userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(user.getId(), user.getEmail()));
 
         return userMapper.toAdminDto(user);
     }
@@ -143,6 +202,40 @@ public class AdminService {
         return cardService.createCardForUser(userId);
     }
 
+    /**
+     * Выпускает карты пользователям без карт и пишет прогресс в поток (NDJSON)
+     *
+     * @param userIds идентификаторы пользователей
+     * @param out поток ответа
+     */
+    public void issueCards(Iterator<Long> userIds, OutputStream out) {
+        bulkCardIssueService.issue(userIds, out);
+    }
+
+    /**
+     * Выгружает карты в поток
+     *
+     * @param status      статус карты, {@code null} - любой
+     * @param expiresFrom начало диапазона срока действия, {@code null} - без ограничения
+     * @param expiresTo   конец диапазона срока действия, {@code null} - без ограничения
+     * @param format      формат выгрузки
+     * @param out         поток ответа
+     */
+    public void exportCards(CardStatus status, LocalDate expiresFrom, LocalDate expiresTo,
+                            ExportFormat format, OutputStream out) {
+        exportService.exportCards(status, expiresFrom, expiresTo, format, out);
+    }
+
+    /**
+     * Выгружает пользователей в поток
+     *
+     * @param format формат выгрузки
+     * @param out    поток ответа
+     */
+    public void exportUsers(ExportFormat format, OutputStream out) {
+        exportService.exportUsers(format, out);
+    }
+
     /**
      * Обновляет CVV код карты
      *
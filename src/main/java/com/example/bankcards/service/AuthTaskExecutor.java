@@ -0,0 +1,76 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Выполняет регистрацию, вход и обновление токенов вне потоков Tomcat.
+ * <p>
+ * BCrypt и блокирующий JDBC идут в отдельном пуле из {@code pool-size} потоков с очередью
+ * на {@code queue-capacity} задач, а не в общем {@code ForkJoinPool}. Когда очередь заполнена,
+ * задача отклоняется {@link ServiceOverloadedException} (503), а не копится без границы.
+ * Пул и число отказов видны в метриках {@code executor.*{name=auth}} и {@code auth.executor.rejected}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AuthTaskExecutor {
+    private final MeterRegistry meterRegistry;
+
+    @Value("${application.security.auth-executor.pool-size:8}")
+    private int poolSize;
+
+    @Value("${application.security.auth-executor.queue-capacity:200}")
+    private int queueCapacity;
+
+    private ExecutorService executor;
+    private Counter rejected;
+
+    @PostConstruct
+    void init() {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), Thread.ofPlatform().name("auth-", 0).factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        executor = ExecutorServiceMetrics.monitor(meterRegistry, pool, "auth", List.of());
+        rejected = meterRegistry.counter("auth.executor.rejected");
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Ставит задачу в очередь пула
+     *
+     * @param task задача
+     * @return результат задачи
+     * @throws ServiceOverloadedException если очередь заполнена
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            log.warn("Auth executor queue is full ({} tasks), rejecting request", queueCapacity);
+            throw new ServiceOverloadedException("Authentication service is overloaded, try again later");
+        }
+    }
+}
@@ -1,30 +1,48 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.config.CustomUserDetails;
 import com.example.bankcards.dto.auth.AuthenticationRequest;
 import com.example.bankcards.dto.auth.AuthenticationResponse;
 import com.example.bankcards.dto.auth.RegistrationRequest;
 import com.example.bankcards.dto.user.UserDto;
+import com.example.bankcards.dto.user.UserSnapshot;
 import com.example.bankcards.entity.Token;
 import com.example.bankcards.entity.TokenType;
 import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.ServiceOverloadedException;
+import com.example.bankcards.exception.TooManyRequestsException;
 import com.example.bankcards.mapper.UserMapper;
 import com.example.bankcards.repository.TokenRepository;
 import com.example.bankcards.repository.UserRepository;
 import com.example.bankcards.security.CustomUserDetailsService;
 import com.example.bankcards.security.JwtService;
+import com.example.bankcards.security.JwtToken;
+import com.example.bankcards.security.LoginRateLimiter;
+import com.example.bankcards.security.TokenRevocationIndex;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.concurrent.CompletableFuture;
 
+/**
+ * Регистрация, вход и обновление токенов.
+ * <p>
+ * BCrypt и проверка учетных данных выполняются вне транзакции: пока поток пула аутентификации
+ * ждет разрешения на хэш или считает его, он не держит соединение с базой. В {@link TransactionTemplate}
+ * выполняются только записи пользователя и токенов.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -36,6 +54,13 @@ public class AuthenticationService {
     private final JwtService jwtService;
     private final UserMapper userMapper;
     private final TokenRepository tokenRepository;
+    private final TokenRevocationIndex revocationIndex;
+    private final UserSnapshotCache userSnapshotCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AuthTaskExecutor authTaskExecutor;
+    private final LoginRateLimiter loginRateLimiter;
+    private final TransactionTemplate transactionTemplate;
+    private final OperationMetrics operationMetrics;
 
     /**
      * Регистрирует нового пользователя
@@ -43,14 +68,18 @@ public class AuthenticationService {
      * @param request данные для регистрации
      * @return ответ с токенами аутентификации
      */
-    @Transactional
     public AuthenticationResponse register(RegistrationRequest request) {
         validateRegister(request);
         var user = userMapper.toEntity(request);
         user.setPassword(passwordEncoder.encode(request.password()));
+        return transactionTemplate.execute(status -> saveRegisteredUser(user));
+    }
+
+    private AuthenticationResponse saveRegisteredUser(User user) {
         var savedUser = userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(savedUser.getId(), savedUser.getEmail()));
 
-        UserDetails userDetails = customUserDetailsService.loadUserByUsername(request.email());
+        UserDetails userDetails = new CustomUserDetails(savedUser);
         var jwtToken = jwtService.generateToken(userDetails);
         var refreshToken = jwtService.generateRefreshToken(userDetails);
         savedUserToken(savedUser, jwtToken);
@@ -58,8 +87,8 @@ public class AuthenticationService {
         UserDto userDto = userMapper.toDto(savedUser);
 
         return AuthenticationResponse.registration(
-                jwtToken,
-                refreshToken,
+                jwtToken.value(),
+                refreshToken.value(),
                 userDto
         );
     }
@@ -69,10 +98,10 @@ public class AuthenticationService {
      *
      * @param request данные для регистрации
      * @return CompletableFuture с ответом аутентификации
+     * @throws ServiceOverloadedException если очередь {@link AuthTaskExecutor} заполнена
      */
-    @Async
     public CompletableFuture<AuthenticationResponse> registerAsync(RegistrationRequest request) {
-        return CompletableFuture.supplyAsync(() -> register(request));
+        return authTaskExecutor.submit(() -> register(request));
     }
 
     /**
@@ -81,39 +110,51 @@ public class AuthenticationService {
      * @param authenticationRequest данные для аутентификации
      * @return ответ с токенами аутентификации
      */
-    @Transactional
     public AuthenticationResponse authenticate(AuthenticationRequest authenticationRequest) {
-        authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(authenticationRequest.email(), authenticationRequest.password())
-        );
+        return operationMetrics.record(OperationMetrics.AUTH_OPERATION, "authenticate",
+                () -> login(authenticationRequest));
+    }
+
+    private AuthenticationResponse login(AuthenticationRequest authenticationRequest) {
+        try {
+            authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(authenticationRequest.email(), authenticationRequest.password())
+            );
+        } catch (BadCredentialsException e) {
+            loginRateLimiter.recordFailure(authenticationRequest.email());
+            throw e;
+        }
+        loginRateLimiter.recordSuccess(authenticationRequest.email());
 
-        User user = userRepository.findByEmail(authenticationRequest.email())
+        UserSnapshot snapshot = userSnapshotCache.getByEmail(authenticationRequest.email())
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        User user = userRepository.getReferenceById(snapshot.id());
 
         UserDetails userDetails = customUserDetailsService.loadUserByUsername(authenticationRequest.email());
         var jwtToken = jwtService.generateToken(userDetails);
         var refreshToken = jwtService.generateRefreshToken(userDetails);
-        revokeAllUserToken(user);
-        savedUserToken(user, jwtToken);
-        savedUserRefreshToken(user, refreshToken);
+        replaceUserTokens(user, snapshot.email(), jwtToken, refreshToken);
 
-        UserDto userDto = userMapper.toDto(user);
+        UserDto userDto = userMapper.toDto(snapshot);
         return AuthenticationResponse.login(
-                jwtToken,
-                refreshToken,
+                jwtToken.value(),
+                refreshToken.value(),
                 userDto
         );
     }
 
     /**
-     * Асинхронно аутентифицирует пользователя
+     * Асинхронно аутентифицирует пользователя; лимит и блокировка по email проверяются
+     * до постановки в очередь
      *
      * @param authenticationRequest данные для аутентификации
      * @return CompletableFuture с ответом аутентификации
+     * @throws TooManyRequestsException если вход по email заблокирован или лимит исчерпан
+     * @throws ServiceOverloadedException если очередь {@link AuthTaskExecutor} заполнена
      */
-    @Async
     public CompletableFuture<AuthenticationResponse> authenticateAsync(AuthenticationRequest authenticationRequest) {
-        return CompletableFuture.supplyAsync(() -> authenticate(authenticationRequest));
+        loginRateLimiter.checkEmail(authenticationRequest.email());
+        return authTaskExecutor.submit(() -> authenticate(authenticationRequest));
     }
 
 
@@ -123,44 +164,48 @@ public class AuthenticationService {
      * @param authHeader заголовок с токеном авторизации
      * @return ответ с новыми токенами аутентификации
      */
-    @Transactional
     public AuthenticationResponse refreshToken(String authHeader) {
+        return operationMetrics.record(OperationMetrics.AUTH_OPERATION, "refresh-token",
+                () -> refresh(authHeader));
+    }
+
+    private AuthenticationResponse refresh(String authHeader) {
         validateRefreshToken(authHeader);
         log.info("sayonara boy");
-        String refreshToken = authHeader.substring(7);
-        String email = jwtService.getUsername(refreshToken);
+        JwtToken refreshToken = jwtService.parse(authHeader.substring(7));
+        String email = refreshToken.subject();
 
         if (email == null)
             throw new IllegalArgumentException("Invalid refresh token");
 
-        String tokenType = jwtService.extractClaim(refreshToken, claims -> claims.get("typ", String.class));
-        if (!"refresh_token".equals(tokenType)) {
+        if (!refreshToken.isRefreshToken()) {
             throw new IllegalArgumentException("Invalid token type for refresh");
         }
 
-        var user = userRepository.findByEmail(email)
+        UserSnapshot snapshot = userSnapshotCache.getByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        User user = userRepository.getReferenceById(snapshot.id());
 
         UserDetails userDetails = customUserDetailsService.loadUserByUsername(email);
 
         if (!jwtService.isTokenValid(refreshToken, userDetails))
             throw new IllegalArgumentException("Refresh token is not valid");
 
-        var storedRefreshToken = tokenRepository.findByToken(refreshToken);
+        var storedRefreshToken = refreshToken.jti() != null
+                ? tokenRepository.findByJti(refreshToken.jti())
+                : tokenRepository.findByToken(refreshToken.value());
         if (storedRefreshToken.isEmpty() || storedRefreshToken.get().isExpired() || storedRefreshToken.get().isRevoked()) {
             throw new IllegalArgumentException("Refresh token is not valid or has been revoked");
         }
 
-        String newAccessToken = jwtService.generateToken(userDetails);
-        String newRefreshToken = jwtService.generateRefreshToken(userDetails);
-        revokeAllUserToken(user);
-        savedUserToken(user, newAccessToken);
-        savedUserRefreshToken(user, newRefreshToken);
+        JwtToken newAccessToken = jwtService.generateToken(userDetails);
+        JwtToken newRefreshToken = jwtService.generateRefreshToken(userDetails);
+        replaceUserTokens(user, snapshot.email(), newAccessToken, newRefreshToken);
 
-        UserDto userDto = userMapper.toDto(user);
+        UserDto userDto = userMapper.toDto(snapshot);
         return AuthenticationResponse.builder()
-                .accessToken(newAccessToken)
-                .refreshToken(newRefreshToken)
+                .accessToken(newAccessToken.value())
+                .refreshToken(newRefreshToken.value())
                 .success(true)
                 .user(userDto)
                 .build();
@@ -171,40 +216,51 @@ public class AuthenticationService {
      *
      * @param authHeader заголовок с токеном авторизации
      * @return CompletableFuture с ответом аутентификации
+     * @throws ServiceOverloadedException если очередь {@link AuthTaskExecutor} заполнена
      */
     public CompletableFuture<AuthenticationResponse> refreshTokenAsync(String authHeader) {
-        return CompletableFuture.supplyAsync(() -> refreshToken(authHeader));
+        return authTaskExecutor.submit(() -> refreshToken(authHeader));
     }
 
-    private void revokeAllUserToken(User user) {
-        var validUserTokens = tokenRepository.findAllValidTokensByUser(user.getId().intValue());
-        if (validUserTokens.isEmpty())
-            return;
-
-        validUserTokens.forEach(t -> {
-            t.setExpired(true);
-            t.setRevoked(true);
+    /**
+     * Отзывает прежние токены пользователя и сохраняет новые в одной короткой транзакции
+     */
+    private void replaceUserTokens(User user, String email, JwtToken accessToken, JwtToken refreshToken) {
+        transactionTemplate.executeWithoutResult(status -> {
+            revokeAllUserToken(user, email, accessToken.issuedAt());
+            savedUserToken(user, accessToken);
+            savedUserRefreshToken(user, refreshToken);
         });
+    }
 
-        tokenRepository.saveAll(validUserTokens);
+    /**
+     * Отзывает все токены пользователя, выпущенные раньше {@code validAfter}:
+     * одним UPDATE по действующим строкам и отметкой в users, которую индекс отзыва
+     * проверяет без загрузки токенов. Стоимость не зависит от числа сессий пользователя.
+     * {@code validAfter} - время выпуска новых токенов, поэтому они под отметку не попадают.
+     */
+    private void revokeAllUserToken(User user, String email, Instant validAfter) {
+        LocalDateTime now = LocalDateTime.now();
+        tokenRepository.revokeAllValidTokensByUser(user.getId(), now);
+        userRepository.updateTokensValidAfter(user.getId(), LocalDateTime.ofInstant(validAfter, ZoneId.systemDefault()));
+        revocationIndex.revokeIssuedBefore(email, validAfter);
     }
 
-    private void savedUserToken(User user, String jwtToken) {
-        var token = Token.builder()
-                .user(user)
-                .token(jwtToken)
-                .tokenType(TokenType.ACCESS)
-                .expired(false)
-                .revoked(false)
-                .build();
-        tokenRepository.save(token);
+    private void savedUserToken(User user, JwtToken jwtToken) {
+        saveToken(user, jwtToken, TokenType.ACCESS);
+    }
+
+    private void savedUserRefreshToken(User user, JwtToken refreshToken) {
+        saveToken(user, refreshToken, TokenType.REFRESH);
     }
 
-    private void savedUserRefreshToken(User user, String refreshToken) {
+    private void saveToken(User user, JwtToken jwtToken, TokenType tokenType) {
         var token = Token.builder()
                 .user(user)
-                .token(refreshToken)
-                .tokenType(TokenType.REFRESH)
+                .token(jwtToken.value())
+                .jti(jwtToken.jti())
+                .expiresAt(LocalDateTime.ofInstant(jwtToken.expiration(), ZoneId.systemDefault()))
+                .tokenType(tokenType)
                 .expired(false)
                 .revoked(false)
                 .build();
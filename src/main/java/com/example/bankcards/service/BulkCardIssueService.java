@@ -0,0 +1,254 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.card.BulkCardIssueProgressDto;
+import com.example.bankcards.dto.card.BulkCardIssueSummaryDto;
+import com.example.bankcards.dto.card.BulkIssuedCardDto;
+import com.example.bankcards.dto.card.CardDto;
+import com.example.bankcards.dto.card.FirstCardsIssueDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * Массовый выпуск карт.
+ * <p>
+ * Идентификаторы пользователей читаются потоком и делятся на пачки по {@code chunk-size};
+ * одновременно обрабатывается не больше {@code parallelism} пачек, каждая в своей транзакции
+ * через {@link CardService#issueFirstCards}. После каждой пачки в ответ пишется строка NDJSON
+ * с прогрессом, в конце - итоговая строка. Пользователи, у которых уже есть карта, пропускаются,
+ * поэтому прерванный выпуск можно безопасно повторить с тем же списком. Несуществующие
+ * пользователи перечисляются в строке прогресса пачки и не мешают выпуску остальным.
+ * <p>
+ * Повторы идентификатора во входе отбрасываются до деления на пачки, чтобы один пользователь
+ * не попал в две параллельные пачки; между конкурентными выпусками карту защищает блокировка
+ * строки пользователя в {@link CardService#issueFirstCards}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BulkCardIssueService {
+    private static final Pattern CSV_SEPARATOR = Pattern.compile("[,;\\s]+");
+
+    private final CardService cardService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${application.card.bulk.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${application.card.bulk.parallelism:2}")
+    private int parallelism;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    void init() {
+        executor = Executors.newFixedThreadPool(parallelism, Thread.ofPlatform().name("bulk-card-issue-", 0).factory());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Выпускает карты пользователям и пишет прогресс в поток
+     *
+     * @param userIds идентификаторы пользователей
+     * @param out     поток ответа
+     */
+    public void issue(Iterator<Long> userIds, OutputStream out) {
+        Job job = new Job(out);
+        Semaphore slots = new Semaphore(parallelism);
+        List<CompletableFuture<Void>> chunks = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        String error = null;
+        try {
+            while (userIds.hasNext() && !job.aborted.get()) {
+                List<Long> chunk = new ArrayList<>(chunkSize);
+                while (chunk.size() < chunkSize && userIds.hasNext()) {
+                    Long userId = userIds.next();
+                    if (seen.add(userId))
+                        chunk.add(userId);
+                    else
+                        job.requested.incrementAndGet();
+                }
+                if (chunk.isEmpty())
+                    break;
+                int number = chunks.size();
+                slots.acquire();
+                chunks.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        job.process(number, chunk);
+                    } finally {
+                        slots.release();
+                    }
+                }, executor));
+            }
+        } catch (IllegalArgumentException | UncheckedIOException e) {
+            error = e.getMessage();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            error = "Bulk issue interrupted";
+        }
+        CompletableFuture.allOf(chunks.toArray(CompletableFuture[]::new)).join();
+
+        job.write(new BulkCardIssueSummaryDto(
+                chunks.size(),
+                job.requested.get(),
+                job.issued.get(),
+                job.requested.get() - job.issued.get() - job.notFound.get() - job.failed.get(),
+                job.notFound.get(),
+                job.failed.get(),
+                error
+        ));
+        log.info("Bulk card issue finished: {} chunks, {} requested, {} issued, {} not found, {} failed",
+                chunks.size(), job.requested.get(), job.issued.get(), job.notFound.get(), job.failed.get());
+    }
+
+    /**
+     * Читает идентификаторы пользователей из CSV: по одному или через запятую в строке,
+     * строка заголовка пропускается
+     *
+     * @param in поток CSV
+     * @return итератор идентификаторов
+     */
+    public static Iterator<Long> readCsv(InputStream in) {
+        return new CsvUserIdIterator(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+    }
+
+    private final class Job {
+        private final OutputStream out;
+        private final ReentrantLock writeLock = new ReentrantLock();
+        private final AtomicBoolean aborted = new AtomicBoolean();
+        private final AtomicInteger requested = new AtomicInteger();
+        private final AtomicInteger issued = new AtomicInteger();
+        private final AtomicInteger notFound = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+
+        private Job(OutputStream out) {
+            this.out = out;
+        }
+
+        private void process(int number, List<Long> userIds) {
+            requested.addAndGet(userIds.size());
+            if (aborted.get()) {
+                failed.addAndGet(userIds.size());
+                return;
+            }
+            BulkCardIssueProgressDto progress;
+            try {
+                FirstCardsIssueDto result = cardService.issueFirstCards(userIds);
+                Map<Long, CardDto> cards = result.cards();
+                issued.addAndGet(cards.size());
+                notFound.addAndGet(result.notFound().size());
+                progress = new BulkCardIssueProgressDto(number, userIds.size(), cards.size(),
+                        userIds.size() - cards.size() - result.notFound().size(), result.notFound(), null,
+                        cards.entrySet().stream().map(e -> new BulkIssuedCardDto(e.getKey(), e.getValue())).toList());
+            } catch (RuntimeException e) {
+                log.warn("Bulk card issue chunk {} failed: {}", number, e.getMessage());
+                failed.addAndGet(userIds.size());
+                progress = new BulkCardIssueProgressDto(number, userIds.size(), 0, 0, List.of(), e.getMessage(), List.of());
+            }
+            write(progress);
+        }
+
+        private void write(Object line) {
+            writeLock.lock();
+            try {
+                out.write(objectMapper.writeValueAsBytes(line));
+                out.write('\n');
+                out.flush();
+            } catch (IOException e) {
+                // клиент отключился: уже начатые пачки дорабатывают, новые не запускаются
+                if (!aborted.getAndSet(true))
+                    log.warn("Bulk card issue output closed: {}", e.getMessage());
+            } finally {
+                writeLock.unlock();
+            }
+        }
+    }
+
+    private static final class CsvUserIdIterator implements Iterator<Long> {
+        private final BufferedReader reader;
+        private String[] tokens = new String[0];
+        private int position;
+        private int line;
+        private Long next;
+
+        private CsvUserIdIterator(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null) {
+                if (position < tokens.length) {
+                    String token = tokens[position++];
+                    if (token.isEmpty())
+                        continue;
+                    try {
+                        next = Long.valueOf(token);
+                    } catch (NumberFormatException e) {
+                        if (line == 1) {
+                            position = tokens.length;
+                            continue;
+                        }
+                        throw new IllegalArgumentException("Invalid user id '" + token + "' at line " + line);
+                    }
+                } else {
+                    String text = readLine();
+                    if (text == null)
+                        return false;
+                    line++;
+                    tokens = CSV_SEPARATOR.split(text.strip());
+                    position = 0;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public Long next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            Long value = next;
+            next = null;
+            return value;
+        }
+
+        private String readLine() {
+            try {
+                return reader.readLine();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.util.CardEncryptionUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Заполняет отпечатки номеров у карт, созданных до появления колонки
+ * {@code card_number_fingerprint}. Работает при старте пачками по возрастанию id,
+ * каждая пачка в своей транзакции.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CardFingerprintBackfill {
+    private final CardRepository cardRepository;
+    private final CardEncryptionUtil cardEncryptionUtil;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${application.encryption.fingerprint-backfill-batch-size:500}")
+    private int batchSize;
+
+    /**
+     * Заполняет отсутствующие отпечатки
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        long lastId = 0;
+        int filled = 0;
+        try {
+            while (true) {
+                final long afterId = lastId;
+                List<Card> cards = transactionTemplate.execute(status -> fillBatch(afterId));
+                if (cards == null || cards.isEmpty())
+                    break;
+                filled += cards.size();
+                lastId = cards.get(cards.size() - 1).getId();
+            }
+        } catch (RuntimeException e) {
+            log.error("Card fingerprint backfill stopped after id {}: {}", lastId, e.getMessage());
+        }
+        if (filled > 0)
+            log.info("Card fingerprint backfill filled {} cards", filled);
+    }
+
+    private List<Card> fillBatch(Long afterId) {
+        List<Card> cards = cardRepository.findByFingerprintIsNullAndIdGreaterThanOrderByIdAsc(afterId, Limit.of(batchSize));
+        if (cards.isEmpty())
+            return cards;
+        List<String> numbers = cardEncryptionUtil.decryptAll(cards.stream().map(Card::getEncryptedNumber).toList());
+        for (int i = 0; i < cards.size(); i++)
+            cards.get(i).setFingerprint(cardEncryptionUtil.fingerprint(numbers.get(i)));
+        return cards;
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.util.LuhnUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Выдает номера карт без коллизий.
+ * <p>
+ * Для каждого BIN в таблице {@code card_number_range} хранится следующее свободное значение.
+ * Узел резервирует блок значений одной короткой транзакцией и дальше выдает номера из памяти,
+ * поэтому база участвует один раз на {@code block-size} номеров. Значение переставляется
+ * биекцией {@code (a * x + c) mod N}, чтобы соседние карты не получали соседние номера,
+ * и дополняется контрольной цифрой Луна. Перестановка биективна, только если емкость диапазона
+ * {@code N} взаимно проста с множителем {@code a} и помещается в разряды номера после BIN,
+ * поэтому емкость проверяется при каждом резервировании блока.
+ */
+@Component
+@Slf4j
+public class CardNumberAllocator {
+    private static final int CARD_NUMBER_LENGTH = 16;
+    private static final long SCRAMBLE_MULTIPLIER = 0x5DEECE66DL;
+    private static final long SCRAMBLE_OFFSET = 0xBL;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate reserveTransaction;
+    private final Map<String, Range> ranges = new ConcurrentHashMap<>();
+
+    @Value("${application.card.bin:400000}")
+    private String defaultBin;
+
+    @Value("${application.card.block-size:1000}")
+    private int blockSize;
+
+    public CardNumberAllocator(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.reserveTransaction = new TransactionTemplate(transactionManager);
+        this.reserveTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Выдает следующий номер карты с BIN по умолчанию
+     *
+     * @return номер карты
+     */
+    public String next() {
+        return next(defaultBin);
+    }
+
+    /**
+     * Выдает следующий номер карты с указанным BIN
+     *
+     * @param bin BIN
+     * @return номер карты
+     */
+    public String next(String bin) {
+        return ranges.computeIfAbsent(bin, Range::new).next();
+    }
+
+    /**
+     * Выдает несколько номеров карт с BIN по умолчанию
+     *
+     * @param count количество номеров
+     * @return номера карт
+     */
+    public List<String> next(int count) {
+        Range range = ranges.computeIfAbsent(defaultBin, Range::new);
+        List<String> numbers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+            numbers.add(range.next());
+        return numbers;
+    }
+
+    private Block reserve(String bin, int size) {
+        Block block = reserveTransaction.execute(status -> {
+            long[] row = jdbcTemplate.queryForObject(
+                    "SELECT next_value, capacity FROM card_number_range WHERE bin = ? FOR UPDATE",
+                    (rs, i) -> new long[]{rs.getLong(1), rs.getLong(2)},
+                    bin
+            );
+            long start = row[0];
+            long capacity = row[1];
+            validateCapacity(bin, capacity);
+            if (start >= capacity)
+                throw new IllegalStateException("Card number range is exhausted for BIN " + bin);
+            long end = Math.min(start + size, capacity);
+            jdbcTemplate.update("UPDATE card_number_range SET next_value = ? WHERE bin = ?", end, bin);
+            return new Block(start, end, capacity);
+        });
+        log.debug("Reserved card numbers [{}, {}) for BIN {}", block.start, block.end, bin);
+        return block;
+    }
+
+    /**
+     * Проверяет, что емкость диапазона дает биекцию: разные значения получают разные номера
+     *
+     * @param bin      BIN
+     * @param capacity емкость диапазона из {@code card_number_range}
+     * @throws IllegalStateException если емкость не помещается в номер или не взаимно проста с множителем
+     */
+    static void validateCapacity(String bin, long capacity) {
+        int accountLength = CARD_NUMBER_LENGTH - 1 - bin.length();
+        if (accountLength <= 0 || accountLength > 18)
+            throw new IllegalStateException("Unsupported BIN length for card numbers: " + bin);
+        long maxCapacity = 1;
+        for (int i = 0; i < accountLength; i++)
+            maxCapacity *= 10;
+        if (capacity <= 0 || capacity > maxCapacity)
+            throw new IllegalStateException("Card number range capacity " + capacity
+                    + " does not fit " + accountLength + " account digits for BIN " + bin);
+        if (BigInteger.valueOf(SCRAMBLE_MULTIPLIER).gcd(BigInteger.valueOf(capacity)).longValue() != 1)
+            throw new IllegalStateException("Card number range capacity " + capacity
+                    + " must be coprime with the scramble multiplier for BIN " + bin);
+    }
+
+    static String format(String bin, long value, long capacity) {
+        int accountLength = CARD_NUMBER_LENGTH - 1 - bin.length();
+        long account = Math.floorMod(multiplyMod(SCRAMBLE_MULTIPLIER % capacity, value, capacity) + SCRAMBLE_OFFSET, capacity);
+        StringBuilder number = new StringBuilder(CARD_NUMBER_LENGTH).append(bin);
+        String digits = Long.toString(account);
+        for (int i = digits.length(); i < accountLength; i++)
+            number.append('0');
+        number.append(digits);
+        return number.append(LuhnUtil.checkDigit(number)).toString();
+    }
+
+    /**
+     * {@code a * b mod m} для неотрицательных {@code a, b < m} без переполнения {@code long}:
+     * пока произведение помещается в 63 бита, хватает обычного умножения
+     */
+    static long multiplyMod(long a, long b, long m) {
+        long low = a * b;
+        if (Math.multiplyHigh(a, b) == 0 && low >= 0)
+            return low % m;
+        return BigInteger.valueOf(a).multiply(BigInteger.valueOf(b)).mod(BigInteger.valueOf(m)).longValue();
+    }
+
+    private record Block(long start, long end, long capacity) {
+    }
+
+    /**
+     * Текущий зарезервированный блок одного BIN. Выдача из блока без блокировок,
+     * блокировка берется только на время резервирования следующего блока.
+     */
+    private final class Range {
+        private final String bin;
+        private final ReentrantLock refillLock = new ReentrantLock();
+        private volatile Block block;
+        private final AtomicLong cursor = new AtomicLong();
+
+        private Range(String bin) {
+            this.bin = bin;
+        }
+
+        private String next() {
+            while (true) {
+                Block current = block;
+                if (current != null) {
+                    long value = cursor.getAndIncrement();
+                    if (value >= current.start && value < current.end)
+                        return format(bin, value, current.capacity);
+                }
+                refill(current);
+            }
+        }
+
+        private void refill(Block exhausted) {
+            refillLock.lock();
+            try {
+                if (block != exhausted)
+                    return;
+                Block reserved = reserve(bin, blockSize);
+                cursor.set(reserved.start);
+                block = reserved;
+            } finally {
+                refillLock.unlock();
+            }
+        }
+    }
+}
@@ -4,22 +4,34 @@ import com.example.bankcards.dto.card.BalanceResponseDto;
 import com.example.bankcards.dto.card.CardDto;
 import com.example.bankcards.dto.card.CardResponseDto;
 import com.example.bankcards.dto.card.CardCvvUpdateResponseDto;
+import com.example.bankcards.dto.card.FirstCardsIssueDto;
+import com.example.bankcards.dto.page.CursorPageDto;
 import com.example.bankcards.dto.transaction.DepositRequestDto;
 import com.example.bankcards.dto.transaction.DepositResponseDto;
 import com.example.bankcards.dto.transaction.MoneyTransactionRequestDto;
 import com.example.bankcards.dto.transaction.MoneyTransactionResponseDto;
+import com.example.bankcards.dto.user.UserSnapshot;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.CardStatus;
-import com.example.bankcards.entity.User;
+import com.example.bankcards.entity.LedgerEntry;
+import com.example.bankcards.entity.LedgerEntryType;
+import com.example.bankcards.exception.CardRejectedException;
+import com.example.bankcards.exception.CardStateException;
 import com.example.bankcards.mapper.CardMapper;
+import com.example.bankcards.repository.CardJdbcRepository;
 import com.example.bankcards.repository.CardRepository;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.repository.projection.CardBalanceView;
 import com.example.bankcards.util.CardEncryptionUtil;
+import com.example.bankcards.util.CursorUtil;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -28,17 +40,40 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class CardService {
+    private static final int MAX_CARD_NUMBER_ATTEMPTS = 5;
+    private static final int DEFAULT_CARD_PAGE_SIZE = 2;
+
     private final CardRepository cardRepository;
     private final UserRepository userRepository;
     private final CardEncryptionUtil cardEncryptionUtil;
     private final CardMapper cardMapper;
+    private final UserSnapshotCache userSnapshotCache;
+    private final CardNumberAllocator cardNumberAllocator;
+    private final CardJdbcRepository cardJdbcRepository;
+    private final LedgerWriter ledgerWriter;
+    private final OperationMetrics operationMetrics;
     private final Random random = new Random();
 
+    @Value("${application.pagination.default-limit:20}")
+    private int defaultPageSize;
+
+    @Value("${application.pagination.max-limit:100}")
+    private int maxPageSize;
+
     /**
      * Генерирует случайную карту для пользователя
      *
@@ -46,11 +81,11 @@ public class CardService {
      * @return информация о созданной карте
      */
     public CardDto generateRandomCard(UserDetails userDetails) {
-        String cardNumber = generateCardNumber();
+        String cardNumber = generateUniqueCardNumber();
         String expiryDateStr = generateExpiryDate();
         String cvv = String.format("%03d", random.nextInt(1000));
 
-        User user = userRepository.findByEmail(userDetails.getUsername())
+        UserSnapshot user = userSnapshotCache.getByEmail(userDetails.getUsername())
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         String encryptedNumber = cardEncryptionUtil.encryptCardNumber(cardNumber);
@@ -60,8 +95,9 @@ public class CardService {
 
         Card card = Card.builder()
                 .encryptedNumber(encryptedNumber)
+                .fingerprint(cardEncryptionUtil.fingerprint(cardNumber))
                 .lastFourDigits(lastFourDigits)
-                .user(user)
+                .user(userRepository.getReferenceById(user.id()))
                 .encryptedCvv(cardEncryptionUtil.encryptValue(cvv))
                 .expirationDate(expirationDate)
                 .status(CardStatus.ACTIVE)
@@ -81,10 +117,10 @@ public class CardService {
      */
     @Transactional
     public CardDto createCardForUser(Long userId) {
-        User user = userRepository.findById(userId)
+        UserSnapshot user = userSnapshotCache.getById(userId)
                 .orElseThrow(() -> new IllegalArgumentException("User not found with id: " + userId));
 
-        String cardNumber = generateCardNumber();
+        String cardNumber = generateUniqueCardNumber();
         String expiryDateStr = generateExpiryDate();
         String cvv = String.format("%03d", random.nextInt(1000));
 
@@ -94,8 +130,9 @@ public class CardService {
 
         Card card = Card.builder()
                 .encryptedNumber(encryptedNumber)
+                .fingerprint(cardEncryptionUtil.fingerprint(cardNumber))
                 .lastFourDigits(lastFourDigits)
-                .user(user)
+                .user(userRepository.getReferenceById(user.id()))
                 .encryptedCvv(cardEncryptionUtil.encryptValue(cvv))
                 .expirationDate(expirationDate)
                 .status(CardStatus.ACTIVE)
@@ -116,10 +153,10 @@ public class CardService {
      */
     @Transactional
     public CardCvvUpdateResponseDto updateCardCvv(Long userId, Long cardId) {
-        User user = userRepository.findById(userId)
+        UserSnapshot user = userSnapshotCache.getById(userId)
                 .orElseThrow(() -> new IllegalArgumentException("User not found with id: " + userId));
 
-        Card card = cardRepository.findByIdAndUserId(cardId, user.getId())
+        Card card = cardRepository.findByIdAndUserId(cardId, user.id())
                 .orElseThrow(() -> new IllegalArgumentException(
                         "Card not found or does not belong to the specified user"
                 ));
@@ -145,14 +182,40 @@ public class CardService {
      */
     @Transactional(readOnly = true)
     public Page<CardResponseDto> getAllCardsByUserId(@NonNull UserDetails userDetails, int page) {
-        Pageable pageable = PageRequest.of(page, 2);
+        return getAllCardsByUserId(userDetails, page, null);
+    }
 
-        User user = userRepository.findByEmail(userDetails.getUsername())
-                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + userDetails.getUsername()));
+    /**
+     * Получает все карты пользователя с пагинацией
+     *
+     * @param userDetails данные пользователя
+     * @param page номер страницы
+     * @param size размер страницы, {@code null} - прежний размер 2; не больше {@code application.pagination.max-limit}
+     * @return страница с картами пользователя
+     */
+    @Transactional(readOnly = true)
+    public Page<CardResponseDto> getAllCardsByUserId(@NonNull UserDetails userDetails, int page, Integer size) {
+        Pageable pageable = PageRequest.of(page, CursorUtil.resolveLimit(size, DEFAULT_CARD_PAGE_SIZE, maxPageSize),
+                Sort.by("id"));
 
-        Page<Card> cardsPage = cardRepository.findAllByUserId(user.getId(), pageable);
+        return cardRepository.findCardViewsByUserEmail(userDetails.getUsername(), pageable);
+    }
+
+    /**
+     * Получает карты пользователя по курсору: один запрос сразу в DTO, без подсчета строк
+     *
+     * @param userDetails данные пользователя
+     * @param after курсор предыдущей страницы, {@code null} - первая страница
+     * @param limit размер страницы, не больше {@code application.pagination.max-limit}
+     * @return страница с картами и курсором следующей страницы
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDto<CardResponseDto> getCardsByUserAfter(@NonNull UserDetails userDetails, String after, Integer limit) {
+        int size = CursorUtil.resolveLimit(limit, defaultPageSize, maxPageSize);
 
-        return cardsPage.map(cardMapper::toDto);
+        List<CardResponseDto> cards = cardRepository.findCardViewsByUserEmailAfter(
+                userDetails.getUsername(), CursorUtil.decode(after), Limit.of(size + 1));
+        return CursorPageDto.of(cards, size, CardResponseDto::id);
     }
 
     /**
@@ -167,54 +230,79 @@ public class CardService {
             MoneyTransactionRequestDto request,
             @NonNull UserDetails userDetails
     ) {
+        return operationMetrics.record(OperationMetrics.CARD_OPERATION, "transfer",
+                () -> transfer(request, userDetails));
+    }
+
+    /**
+     * Пополняет баланс карты
+     *
+     * @param request данные для пополнения
+     * @param userDetails данные пользователя
+     * @return информация о пополнении баланса
+     */
+    @Transactional
+    public DepositResponseDto depositToCard(
+            DepositRequestDto request,
+            @NonNull UserDetails userDetails
+    ) {
+        return operationMetrics.record(OperationMetrics.CARD_OPERATION, "deposit",
+                () -> deposit(request, userDetails));
+    }
+
+    /**
+     * Получает баланс карты
+     *
+     * @param cardId идентификатор карты
+     * @param userDetails данные пользователя
+     * @return информация о балансе карты
+     */
+    @Transactional(readOnly = true)
+    public BalanceResponseDto getCardBalance(Long cardId, UserDetails userDetails) {
+        return operationMetrics.record(OperationMetrics.CARD_OPERATION, "balance",
+                () -> cardRepository.findBalanceView(cardId, userDetails.getUsername())
+                        .orElseThrow(() -> new CardRejectedException(OperationMetrics.NOT_FOUND,
+                                "The card was not found or does not belong to you.")));
+    }
+
+    private MoneyTransactionResponseDto transfer(MoneyTransactionRequestDto request, UserDetails userDetails) {
         String email = userDetails.getUsername();
 
-        User user = userRepository.findByEmail(email)
+        UserSnapshot user = userSnapshotCache.getByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
 
         if (request.fromCardId().equals(request.toCardId()))
             throw new IllegalArgumentException("You cannot transfer from one card to another");
 
-
-        Card fromCard = cardRepository.findByIdAndUserId(request.fromCardId(), user.getId())
-                .orElseThrow(() -> new IllegalArgumentException(
-                        "The sender's card was not found or does not belong to you."
-                ));
-
-        Card toCard = cardRepository.findByIdAndUserId(request.toCardId(), user.getId())
-                .orElseThrow(() -> new IllegalArgumentException(
-                        "The recipient's card was not found or does not belong to you."
-                ));
-
-        if (fromCard.getStatus() != CardStatus.ACTIVE)
-            throw new IllegalArgumentException("The sender's card is inactive. Status: " + fromCard.getStatus().toString());
-
-        if (toCard.getStatus() != CardStatus.ACTIVE)
-            throw new IllegalArgumentException("The recipient's card is inactive. Status: " + toCard.getStatus().toString());
-
-        if (fromCard.getExpirationDate().isBefore(LocalDate.now())) {
-            throw new IllegalStateException("The sender's card has expired.");
+        // условия проверяются в самих UPDATE, строки обновляются по возрастанию id:
+        // встречные переводы ждут друг друга, а не взаимоблокируются
+        LocalDate today = LocalDate.now();
+        if (request.fromCardId() < request.toCardId()) {
+            debit(request, user.id(), today);
+            credit(request, user.id(), today);
+        } else {
+            credit(request, user.id(), today);
+            debit(request, user.id(), today);
         }
 
-        if (toCard.getExpirationDate().isBefore(LocalDate.now())) {
-            throw new IllegalStateException("The recipient's card has expired.");
-        }
-
-        if (fromCard.getBalance().compareTo(request.amount()) < 0)
-            throw new IllegalArgumentException(String.format("Insufficient funds. Available %s. Required %s.",
-                    fromCard.getBalance().toString(),
-                    request.amount()
-            ));
+        Map<Long, CardBalanceView> balances = findBalances(List.of(request.fromCardId(), request.toCardId()));
+        CardBalanceView fromCard = balances.get(request.fromCardId());
+        CardBalanceView toCard = balances.get(request.toCardId());
 
         String message = (request.message() != null && !request.message().isEmpty())
                 ? request.message()
                 : "";
 
-        fromCard.setBalance(fromCard.getBalance().subtract(request.amount()));
-        toCard.setBalance(toCard.getBalance().add(request.amount()));
+        LocalDateTime timestamp = LocalDateTime.now();
+        ledgerWriter.record(LedgerEntry.builder()
+                .type(LedgerEntryType.TRANSFER)
+                .fromCardId(request.fromCardId())
+                .toCardId(request.toCardId())
+                .amount(request.amount())
+                .message(request.message())
+                .createdAt(timestamp)
+                .build());
 
-        cardRepository.save(fromCard);
-        cardRepository.save(toCard);
         return MoneyTransactionResponseDto.builder()
                 .success(true)
                 .message(message)
@@ -225,43 +313,27 @@ public class CardService {
                 .amount(request.amount())
                 .fromCardBalance(fromCard.getBalance())
                 .toCardBalance(toCard.getBalance())
-                .timestamp(LocalDateTime.now())
+                .timestamp(timestamp)
                 .build();
     }
 
-    /**
-     * Пополняет баланс карты
-     *
-     * @param request данные для пополнения
-     * @param userDetails данные пользователя
-     * @return информация о пополнении баланса
-     */
-    @Transactional
-    public DepositResponseDto depositToCard(
-            DepositRequestDto request,
-            @NonNull UserDetails userDetails
-    ) {
-        User user = userRepository.findByEmail(userDetails.getUsername())
+    private DepositResponseDto deposit(DepositRequestDto request, UserDetails userDetails) {
+        UserSnapshot user = userSnapshotCache.getByEmail(userDetails.getUsername())
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
 
-        Card card = cardRepository.findByIdAndUserId(request.cardId(), user.getId())
-                .orElseThrow(() -> new IllegalArgumentException(
-                        "Карта не найдена или не принадлежит вам"
-                ));
-
-        if (card.getStatus() != CardStatus.ACTIVE) {
-            throw new IllegalStateException(
-                    "Карта неактивна. Статус: " + card.getStatus()
-            );
-        }
-
-        if (card.getExpirationDate().isBefore(LocalDate.now())) {
-            throw new IllegalStateException("Срок действия карты истек");
-        }
+        LocalDate today = LocalDate.now();
+        if (cardRepository.credit(request.cardId(), user.id(), request.amount(), today) != 1)
+            throw depositRejection(request.cardId(), user.id(), today);
 
-        card.setBalance(card.getBalance().add(request.amount()));
+        CardBalanceView card = findBalances(List.of(request.cardId())).get(request.cardId());
 
-        cardRepository.save(card);
+        LocalDateTime timestamp = LocalDateTime.now();
+        ledgerWriter.record(LedgerEntry.builder()
+                .type(LedgerEntryType.DEPOSIT)
+                .toCardId(request.cardId())
+                .amount(request.amount())
+                .createdAt(timestamp)
+                .build());
 
         return DepositResponseDto.builder()
                 .success(true)
@@ -270,29 +342,7 @@ public class CardService {
                 .cardMask(card.getMaskedNumber())
                 .amount(request.amount())
                 .newBalance(card.getBalance())
-                .timestamp(LocalDateTime.now())
-                .build();
-    }
-
-    /**
-     * Получает баланс карты
-     *
-     * @param cardId идентификатор карты
-     * @param userDetails данные пользователя
-     * @return информация о балансе карты
-     */
-    @Transactional(readOnly = true)
-    public BalanceResponseDto getCardBalance(Long cardId, UserDetails userDetails) {
-        User user = userRepository.findByEmail(userDetails.getUsername())
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
-
-        Card card = cardRepository.findByIdAndUserId(cardId, user.getId())
-                .orElseThrow(() -> new IllegalArgumentException("The card was not found or does not belong to you."));
-
-        return BalanceResponseDto.builder()
-                .cardId(card.getId())
-                .cardMask(card.getMaskedNumber())
-                .balance(card.getBalance())
+                .timestamp(timestamp)
                 .build();
     }
 
@@ -305,10 +355,10 @@ public class CardService {
      */
     @Transactional
     public CardResponseDto blockCard(Long cardId, UserDetails userDetails) {
-        User user = userRepository.findByEmail(userDetails.getUsername())
+        UserSnapshot user = userSnapshotCache.getByEmail(userDetails.getUsername())
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
 
-        Card card = cardRepository.findByIdAndUserId(cardId, user.getId())
+        Card card = cardRepository.findByIdAndUserId(cardId, user.id())
                 .orElseThrow(() -> new IllegalArgumentException("The card was not found or does not belong to you."));
 
         if (card.getStatus() == CardStatus.BLOCKED)
@@ -327,6 +377,80 @@ public class CardService {
     }
 
 
+    private Map<Long, CardBalanceView> findBalances(Collection<Long> cardIds) {
+        return cardRepository.findBalancesByIdIn(cardIds).stream()
+                .collect(Collectors.toMap(CardBalanceView::getId, Function.identity()));
+    }
+
+    private void debit(MoneyTransactionRequestDto request, Long userId, LocalDate today) {
+        if (cardRepository.debit(request.fromCardId(), userId, request.amount(), today) != 1)
+            throw transferRejection(request, userId, today, true);
+    }
+
+    private void credit(MoneyTransactionRequestDto request, Long userId, LocalDate today) {
+        if (cardRepository.credit(request.toCardId(), userId, request.amount(), today) != 1)
+            throw transferRejection(request, userId, today, false);
+    }
+
+    /**
+     * Определяет, какое условие перевода не выполнилось, когда UPDATE не изменил строку.
+     * Вызывается только на отказе, успешный перевод карты не читает. Если списание отклонено,
+     * а карта отправителя активна, причина - нехватка средств на момент UPDATE,
+     * даже если баланс успели пополнить конкурентно
+     */
+    private RuntimeException transferRejection(MoneyTransactionRequestDto request, Long userId,
+                                               LocalDate today, boolean debitRejected) {
+        Card fromCard = cardRepository.findByIdAndUserId(request.fromCardId(), userId).orElse(null);
+        if (fromCard == null)
+            return new CardRejectedException(OperationMetrics.NOT_FOUND,
+                    "The sender's card was not found or does not belong to you.");
+
+        Card toCard = cardRepository.findByIdAndUserId(request.toCardId(), userId).orElse(null);
+        if (toCard == null)
+            return new CardRejectedException(OperationMetrics.NOT_FOUND,
+                    "The recipient's card was not found or does not belong to you.");
+
+        if (fromCard.getStatus() != CardStatus.ACTIVE)
+            return new CardRejectedException(OperationMetrics.INACTIVE,
+                    "The sender's card is inactive. Status: " + fromCard.getStatus().toString());
+
+        if (toCard.getStatus() != CardStatus.ACTIVE)
+            return new CardRejectedException(OperationMetrics.INACTIVE,
+                    "The recipient's card is inactive. Status: " + toCard.getStatus().toString());
+
+        if (fromCard.getExpirationDate().isBefore(today))
+            return new CardStateException(OperationMetrics.EXPIRED, "The sender's card has expired.");
+
+        if (toCard.getExpirationDate().isBefore(today))
+            return new CardStateException(OperationMetrics.EXPIRED, "The recipient's card has expired.");
+
+        if (debitRejected)
+            return new CardRejectedException(OperationMetrics.INSUFFICIENT_FUNDS,
+                    String.format("Insufficient funds. Available %s. Required %s.",
+                            fromCard.getBalance().toString(),
+                            request.amount()
+                    ));
+
+        return new CardStateException(OperationMetrics.CONFLICT, "The transfer could not be completed, please try again");
+    }
+
+    /**
+     * Определяет, почему пополнение не изменило строку карты
+     */
+    private RuntimeException depositRejection(Long cardId, Long userId, LocalDate today) {
+        Card card = cardRepository.findByIdAndUserId(cardId, userId).orElse(null);
+        if (card == null)
+            return new CardRejectedException(OperationMetrics.NOT_FOUND, "Карта не найдена или не принадлежит вам");
+
+        if (card.getStatus() != CardStatus.ACTIVE)
+            return new CardStateException(OperationMetrics.INACTIVE, "Карта неактивна. Статус: " + card.getStatus());
+
+        if (card.getExpirationDate().isBefore(today))
+            return new CardStateException(OperationMetrics.EXPIRED, "Срок действия карты истек");
+
+        return new CardStateException(OperationMetrics.CONFLICT, "Пополнение не выполнено, повторите попытку");
+    }
+
     private LocalDate parseExpiryDate(String expiryDate) {
         String[] parts = expiryDate.split("/");
         int month = Integer.parseInt(parts[0]);
@@ -336,10 +460,131 @@ public class CardService {
         );
     }
 
-    private String generateCardNumber() {
-        String bin = "400000";
-        long randomPart = Math.abs(random.nextLong() % 1_000_000_0000L);
-        return bin + String.format("%010d", randomPart);
+    /**
+     * Находит карту по полному номеру
+     *
+     * @param cardNumber номер карты
+     * @return информация о карте
+     */
+    @Transactional(readOnly = true)
+    public CardResponseDto findCardByNumber(String cardNumber) {
+        Card card = cardRepository.findByFingerprint(cardEncryptionUtil.fingerprint(cardNumber))
+                .orElseThrow(() -> new IllegalArgumentException("Card not found"));
+        return cardMapper.toDto(card);
+    }
+
+    /**
+     * Выпускает по одной карте каждому пользователю из списка.
+     * Карты вставляются пакетами JDBC одной транзакцией; список стоит передавать частями.
+     *
+     * @param userIds идентификаторы пользователей
+     * @return информация о созданных картах в порядке пользователей
+     */
+    @Transactional
+    public List<CardDto> issueCards(List<Long> userIds) {
+        if (userIds.isEmpty())
+            return List.of();
+
+        Set<Long> existing = new HashSet<>(userRepository.findExistingIds(userIds));
+        List<Long> missing = userIds.stream().filter(id -> !existing.contains(id)).distinct().toList();
+        if (!missing.isEmpty())
+            throw new IllegalArgumentException("Users not found with ids: " + missing);
+
+        Map<String, String> fingerprints = allocateUniqueCardNumbers(userIds.size());
+        List<String> numbers = new ArrayList<>(fingerprints.keySet());
+        List<String> cvvs = new ArrayList<>(numbers.size());
+        List<String> expiryDates = new ArrayList<>(numbers.size());
+        for (int i = 0; i < numbers.size(); i++) {
+            cvvs.add(String.format("%03d", random.nextInt(1000)));
+            expiryDates.add(generateExpiryDate());
+        }
+        List<String> encryptedNumbers = cardEncryptionUtil.encryptAll(numbers);
+        List<String> encryptedCvvs = cardEncryptionUtil.encryptAll(cvvs);
+
+        List<Card> cards = new ArrayList<>(numbers.size());
+        List<CardDto> result = new ArrayList<>(numbers.size());
+        for (int i = 0; i < numbers.size(); i++) {
+            String cardNumber = numbers.get(i);
+            cards.add(Card.builder()
+                    .encryptedNumber(encryptedNumbers.get(i))
+                    .fingerprint(fingerprints.get(cardNumber))
+                    .lastFourDigits(cardEncryptionUtil.extractLastFourDigits(cardNumber))
+                    .user(userRepository.getReferenceById(userIds.get(i)))
+                    .encryptedCvv(encryptedCvvs.get(i))
+                    .expirationDate(parseExpiryDate(expiryDates.get(i)))
+                    .status(CardStatus.ACTIVE)
+                    .balance(BigDecimal.ZERO)
+                    .build());
+            result.add(new CardDto(cardNumber, expiryDates.get(i), cvvs.get(i)));
+        }
+        cardJdbcRepository.insertAll(cards);
+        return result;
+    }
+
+    /**
+     * Выпускает карты только тем пользователям, у которых еще нет ни одной карты.
+     * Повторный вызов с теми же пользователями ничего не выпускает.
+     * <p>
+     * Строки пользователей блокируются до проверки наличия карт: конкурентная транзакция
+     * с теми же пользователями ждет фиксации этой и уже видит выпущенные карты.
+     * Несуществующие пользователи не прерывают выпуск остальным и возвращаются отдельно.
+     *
+     * @param userIds идентификаторы пользователей
+     * @return выпущенные карты по идентификатору пользователя и ненайденные пользователи
+     */
+    @Transactional
+    public FirstCardsIssueDto issueFirstCards(Collection<Long> userIds) {
+        List<Long> distinct = userIds.stream().distinct().toList();
+        if (distinct.isEmpty())
+            return new FirstCardsIssueDto(Map.of(), List.of());
+
+        Set<Long> existing = new HashSet<>(userRepository.lockByIdIn(distinct));
+        List<Long> notFound = distinct.stream()
+                .filter(id -> !existing.contains(id))
+                .toList();
+        if (existing.isEmpty())
+            return new FirstCardsIssueDto(Map.of(), notFound);
+
+        Set<Long> withCards = new HashSet<>(cardRepository.findUserIdsWithCards(existing));
+        List<Long> remaining = distinct.stream()
+                .filter(id -> existing.contains(id) && !withCards.contains(id))
+                .toList();
+
+        List<CardDto> cards = issueCards(remaining);
+        Map<Long, CardDto> result = new LinkedHashMap<>(remaining.size() * 2);
+        for (int i = 0; i < remaining.size(); i++)
+            result.put(remaining.get(i), cards.get(i));
+        return new FirstCardsIssueDto(result, notFound);
+    }
+
+    private String generateUniqueCardNumber() {
+        for (int attempt = 0; attempt < MAX_CARD_NUMBER_ATTEMPTS; attempt++) {
+            String cardNumber = cardNumberAllocator.next();
+            if (!cardRepository.existsByFingerprint(cardEncryptionUtil.fingerprint(cardNumber)))
+                return cardNumber;
+        }
+        throw new IllegalStateException("Failed to generate a unique card number");
+    }
+
+    /**
+     * Выделяет номера и отбрасывает те, что уже заняты картами, выпущенными до появления
+     * диапазонов, - одним запросом на пачку
+     */
+    private Map<String, String> allocateUniqueCardNumbers(int count) {
+        Map<String, String> fingerprints = new LinkedHashMap<>(count * 2);
+        for (int attempt = 0; attempt < MAX_CARD_NUMBER_ATTEMPTS && fingerprints.size() < count; attempt++) {
+            Map<String, String> candidates = new LinkedHashMap<>();
+            for (String cardNumber : cardNumberAllocator.next(count - fingerprints.size()))
+                candidates.put(cardNumber, cardEncryptionUtil.fingerprint(cardNumber));
+            Set<String> taken = new HashSet<>(cardRepository.findExistingFingerprints(candidates.values()));
+            candidates.forEach((cardNumber, fingerprint) -> {
+                if (!taken.contains(fingerprint))
+                    fingerprints.put(cardNumber, fingerprint);
+            });
+        }
+        if (fingerprints.size() < count)
+            throw new IllegalStateException("Failed to generate unique card numbers");
+        return fingerprints;
     }
 
 
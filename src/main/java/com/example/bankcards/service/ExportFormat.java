@@ -0,0 +1,34 @@
+package com.example.bankcards.service;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Формат выгрузки
+ */
+public enum ExportFormat {
+    NDJSON(MediaType.APPLICATION_NDJSON),
+    CSV(MediaType.parseMediaType("text/csv"));
+
+    private final MediaType mediaType;
+
+    ExportFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Разбирает формат из параметра запроса
+     *
+     * @param value {@code ndjson} или {@code csv}
+     * @return формат выгрузки
+     */
+    public static ExportFormat of(String value) {
+        for (ExportFormat format : values())
+            if (format.name().equalsIgnoreCase(value))
+                return format;
+        throw new IllegalArgumentException("Unsupported export format: " + value);
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.card.CardResponseDto;
+import com.example.bankcards.dto.user.AdminUserDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.mapper.CardMapper;
+import com.example.bankcards.mapper.UserMapper;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Потоковая выгрузка карт и пользователей для отчетности.
+ * <p>
+ * Строки читаются одним курсором JDBC с размером выборки {@link CardRepository#EXPORT_FETCH_SIZE}
+ * и пишутся прямо в поток ответа; каждая сущность отсоединяется от контекста сразу после записи,
+ * поэтому расход памяти не зависит от размера таблицы.
+ */
+@Service
+@RequiredArgsConstructor
+public class ExportService {
+    private static final String CARDS_CSV_HEADER = "id,last_four_digits,masked_number,expiration_date,status,balance";
+    private static final String USERS_CSV_HEADER = "id,username,email,roles,is_active,date_time_of_created";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final CardRepository cardRepository;
+    private final UserRepository userRepository;
+    private final CardMapper cardMapper;
+    private final UserMapper userMapper;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+
+    /**
+     * Выгружает карты, подходящие под фильтры
+     *
+     * @param status      статус карты, {@code null} - любой
+     * @param expiresFrom начало диапазона срока действия включительно, {@code null} - без ограничения
+     * @param expiresTo   конец диапазона срока действия включительно, {@code null} - без ограничения
+     * @param format      формат выгрузки
+     * @param out         поток ответа
+     * @return количество выгруженных карт
+     */
+    @Transactional(readOnly = true)
+    public long exportCards(CardStatus status, LocalDate expiresFrom, LocalDate expiresTo,
+                            ExportFormat format, OutputStream out) {
+        try (Stream<Card> cards = cardRepository.streamForExport(status, expiresFrom, expiresTo)) {
+            return write(cards, cardMapper::toDto, format, CARDS_CSV_HEADER, ExportService::toCsv, out);
+        }
+    }
+
+    /**
+     * Выгружает всех пользователей с ролями
+     *
+     * @param format формат выгрузки
+     * @param out    поток ответа
+     * @return количество выгруженных пользователей
+     */
+    @Transactional(readOnly = true)
+    public long exportUsers(ExportFormat format, OutputStream out) {
+        try (Stream<User> users = userRepository.streamAllForExport()) {
+            return write(users, userMapper::toAdminDto, format, USERS_CSV_HEADER, ExportService::toCsv, out);
+        }
+    }
+
+    private <E, D> long write(Stream<E> rows, Function<E, D> toDto, ExportFormat format, String csvHeader,
+                              Function<D, String> toCsv, OutputStream out) {
+        try {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+            ObjectWriter json = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            if (format == ExportFormat.CSV)
+                writer.write(csvHeader + "\n");
+            long count = 0;
+            for (E row : (Iterable<E>) rows::iterator) {
+                D dto = toDto.apply(row);
+                entityManager.detach(row);
+                if (format == ExportFormat.CSV)
+                    writer.write(toCsv.apply(dto));
+                else
+                    json.writeValue(writer, dto);
+                writer.write('\n');
+                count++;
+            }
+            writer.flush();
+            return count;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String toCsv(CardResponseDto card) {
+        return String.join(",",
+                String.valueOf(card.id()),
+                csv(card.lastFourDigits()),
+                csv(card.maskedNumber()),
+                csv(card.expirationDate()),
+                csv(card.status()),
+                csv(card.balance()));
+    }
+
+    private static String toCsv(AdminUserDto user) {
+        String roles = user.roles() == null ? "" : user.roles().stream()
+                .map(Role::name)
+                .collect(Collectors.joining("|"));
+        return String.join(",",
+                String.valueOf(user.id()),
+                csv(user.username()),
+                csv(user.email()),
+                csv(roles),
+                String.valueOf(user.isActive()),
+                csv(user.dateTimeOfCreated()));
+    }
+
+    private static String csv(Object value) {
+        String text = Objects.toString(value, "");
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0)
+            return text;
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.user.UserSnapshot;
+import com.example.bankcards.exception.IdempotencyKeyConflictException;
+import com.example.bankcards.repository.IdempotencyKeyRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.function.Supplier;
+
+/**
+ * Выполняет денежные операции не более одного раза на ключ {@code Idempotency-Key}.
+ * <p>
+ * Ответ сохраняется в таблице {@code idempotency_key} в одной транзакции с операцией
+ * и кэшируется в памяти: повтор запроса с тем же ключом возвращает сохраненный ответ,
+ * не вызывая {@link CardService}. Ключ, использованный с другим телом запроса, отклоняется
+ * {@link IdempotencyKeyConflictException}. Ключи живут {@code ttl} и удаляются фоновой очисткой.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IdempotencyService {
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final UserSnapshotCache userSnapshotCache;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${application.idempotency.ttl:86400000}")
+    private long ttl;
+
+    @Value("${application.idempotency.cache-size:10000}")
+    private long cacheSize;
+
+    @Value("${application.idempotency.purge-batch-size:1000}")
+    private int purgeBatchSize;
+
+    private Cache<String, IdempotencyKeyRepository.StoredRequest> responses;
+
+    /**
+     * Сохраненный запрос и ответ, если операция выполнялась в этом вызове
+     */
+    private record Outcome<T>(IdempotencyKeyRepository.StoredRequest stored, T result) {
+    }
+
+    @PostConstruct
+    void init() {
+        responses = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(Duration.ofMillis(ttl))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, responses, "idempotency.responses");
+    }
+
+    /**
+     * Выполняет операцию или возвращает ответ, сохраненный для этого ключа
+     *
+     * @param key          значение заголовка {@code Idempotency-Key}, без ключа операция выполняется как обычно
+     * @param email        email пользователя
+     * @param operation    имя операции, входит в хэш запроса
+     * @param request      тело запроса
+     * @param responseType тип ответа
+     * @param action       операция
+     * @return ответ операции
+     */
+    public <T> T execute(String key, String email, String operation, Object request,
+                         Class<T> responseType, Supplier<T> action) {
+        if (key == null)
+            return action.get();
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH)
+            throw new IllegalArgumentException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters long");
+
+        UserSnapshot user = userSnapshotCache.getByEmail(email)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        String requestHash = hash(operation, request);
+        String cacheKey = user.id() + ":" + key;
+
+        IdempotencyKeyRepository.StoredRequest cached = responses.getIfPresent(cacheKey);
+        if (cached != null && cached.expiresAt().isAfter(LocalDateTime.now()))
+            return replay(cached, requestHash, responseType);
+
+        Outcome<T> outcome = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime expiresAt = now.plusNanos(ttl * 1_000_000);
+            if (!idempotencyKeyRepository.reserve(user.id(), key, requestHash, now, expiresAt)) {
+                IdempotencyKeyRepository.StoredRequest existing = idempotencyKeyRepository.find(user.id(), key)
+                        .orElseThrow(() -> new IdempotencyKeyConflictException(
+                                "A request with this Idempotency-Key is in progress"));
+                if (existing.expiresAt().isAfter(now))
+                    return new Outcome<>(existing, null);
+                idempotencyKeyRepository.delete(user.id(), key);
+                if (!idempotencyKeyRepository.reserve(user.id(), key, requestHash, now, expiresAt))
+                    throw new IdempotencyKeyConflictException("A request with this Idempotency-Key is in progress");
+            }
+            T result = action.get();
+            String response = write(result);
+            idempotencyKeyRepository.complete(user.id(), key, response);
+            return new Outcome<>(new IdempotencyKeyRepository.StoredRequest(requestHash, response, expiresAt), result);
+        });
+
+        responses.put(cacheKey, outcome.stored());
+        return outcome.result() != null ? outcome.result() : replay(outcome.stored(), requestHash, responseType);
+    }
+
+    /**
+     * Удаляет истекшие ключи пачками
+     *
+     * @return количество удаленных строк
+     */
+    @Scheduled(
+            initialDelayString = "${application.idempotency.purge-interval:600000}",
+            fixedDelayString = "${application.idempotency.purge-interval:600000}"
+    )
+    public long purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        long total = 0;
+        try {
+            int deleted;
+            do {
+                deleted = idempotencyKeyRepository.deleteExpired(now, purgeBatchSize);
+                total += deleted;
+            } while (deleted == purgeBatchSize);
+        } catch (RuntimeException e) {
+            log.error("Idempotency key purge failed after {} rows: {}", total, e.getMessage());
+        }
+        if (total > 0)
+            log.info("Purged {} expired idempotency keys", total);
+        return total;
+    }
+
+    private <T> T replay(IdempotencyKeyRepository.StoredRequest stored, String requestHash, Class<T> responseType) {
+        if (!stored.requestHash().equals(requestHash))
+            throw new IdempotencyKeyConflictException("Idempotency-Key was already used with a different request");
+        if (stored.response() == null)
+            throw new IdempotencyKeyConflictException("A request with this Idempotency-Key is in progress");
+        try {
+            return objectMapper.readValue(stored.response(), responseType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to read stored response", e);
+        }
+    }
+
+    private String hash(String operation, Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(operation.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) ':');
+            digest.update(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("Failed to hash request", e);
+        }
+    }
+
+    private String write(Object response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to store response", e);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.LedgerEntry;
+import com.example.bankcards.repository.LedgerJdbcRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Пишет записи журнала операций.
+ * <p>
+ * Записи копятся в буфере текущей транзакции и вставляются одним JDBC-пакетом перед ее
+ * фиксацией. Журнал фиксируется или откатывается вместе с изменением баланса: операции
+ * без записи в журнале не бывает, а отдельного файла упреждающей записи не нужно.
+ * Вне транзакции запись вставляется сразу.
+ */
+@Component
+@RequiredArgsConstructor
+public class LedgerWriter {
+    private final LedgerJdbcRepository ledgerJdbcRepository;
+
+    @Value("${application.ledger.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * Добавляет запись в журнал
+     *
+     * @param entry запись журнала
+     */
+    public void record(LedgerEntry entry) {
+        if (!enabled)
+            return;
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            ledgerJdbcRepository.insertAll(List.of(entry));
+            return;
+        }
+        Buffer buffer = (Buffer) TransactionSynchronizationManager.getResource(this);
+        if (buffer == null) {
+            buffer = new Buffer();
+            TransactionSynchronizationManager.bindResource(this, buffer);
+            TransactionSynchronizationManager.registerSynchronization(buffer);
+        }
+        buffer.entries.add(entry);
+    }
+
+    private class Buffer implements TransactionSynchronization {
+        private final List<LedgerEntry> entries = new ArrayList<>();
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            ledgerJdbcRepository.insertAll(entries);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(LedgerWriter.this);
+        }
+    }
+}
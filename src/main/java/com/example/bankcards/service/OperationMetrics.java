@@ -0,0 +1,103 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.exception.CardRejectedException;
+import com.example.bankcards.exception.CardStateException;
+import com.example.bankcards.exception.ServiceOverloadedException;
+import com.example.bankcards.exception.TooManyRequestsException;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Supplier;
+
+/**
+ * Таймеры операций с тегами {@code operation} и {@code outcome}.
+ * <p>
+ * Исход успешной операции - {@link #SUCCESS}; исход отказа берется из {@link CardRejectedException}
+ * и {@link CardStateException} или определяется по типу исключения. Перцентили и гистограммы
+ * задаются в {@code management.metrics.distribution}.
+ * <p>
+ * Внутри транзакции замер останавливается после ее завершения, поэтому в него входят
+ * фиксация и вставка журнала операций; если фиксация не удалась, исход - {@link #ERROR}.
+ */
+@Component
+@RequiredArgsConstructor
+public class OperationMetrics {
+    public static final String CARD_OPERATION = "card.operation";
+    public static final String AUTH_OPERATION = "auth.operation";
+
+    public static final String SUCCESS = "success";
+    public static final String INSUFFICIENT_FUNDS = "insufficient_funds";
+    public static final String INACTIVE = "inactive";
+    public static final String EXPIRED = "expired";
+    public static final String NOT_FOUND = "not_found";
+    public static final String BAD_CREDENTIALS = "bad_credentials";
+    public static final String THROTTLED = "throttled";
+    public static final String CONFLICT = "conflict";
+    public static final String INVALID = "invalid";
+    public static final String ERROR = "error";
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Выполняет операцию и записывает ее длительность с исходом
+     *
+     * @param name      имя таймера
+     * @param operation значение тега {@code operation}
+     * @param action    операция
+     * @return результат операции
+     */
+    public <T> T record(String name, String operation, Supplier<T> action) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        T result;
+        try {
+            result = action.get();
+        } catch (RuntimeException e) {
+            stop(sample, name, operation, outcomeOf(e));
+            throw e;
+        }
+        stop(sample, name, operation, SUCCESS);
+        return result;
+    }
+
+    private void stop(Timer.Sample sample, String name, String operation, String outcome) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            sample.stop(meterRegistry.timer(name, "operation", operation, "outcome", outcome));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                String completed = status == STATUS_COMMITTED || !SUCCESS.equals(outcome) ? outcome : ERROR;
+                sample.stop(meterRegistry.timer(name, "operation", operation, "outcome", completed));
+            }
+        });
+    }
+
+    static String outcomeOf(RuntimeException e) {
+        if (e instanceof CardRejectedException rejected)
+            return rejected.getOutcome();
+        if (e instanceof CardStateException state)
+            return state.getOutcome();
+        if (e instanceof ExpiredJwtException)
+            return EXPIRED;
+        if (e instanceof JwtException)
+            return INVALID;
+        if (e instanceof BadCredentialsException)
+            return BAD_CREDENTIALS;
+        if (e instanceof UsernameNotFoundException)
+            return NOT_FOUND;
+        if (e instanceof TooManyRequestsException || e instanceof ServiceOverloadedException)
+            return THROTTLED;
+        if (e instanceof IllegalArgumentException)
+            return INVALID;
+        return ERROR;
+    }
+}
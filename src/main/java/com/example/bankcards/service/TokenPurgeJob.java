@@ -0,0 +1,107 @@
+package com.example.bankcards.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Удаляет из таблицы {@code token} строки, срок действия JWT которых истек.
+ * <p>
+ * Удаление идет пачками по {@code batch-size} строк с паузой между пачками и ограничением
+ * числа пачек за запуск, чтобы не держать длинных блокировок и не нагружать базу.
+ * Отозванные, но еще не истекшие токены не удаляются: по ним синхронизируется индекс отзыва.
+ * Метрики: {@code tokens.purged} - удалено строк, {@code tokens.purge.lag} - сколько секунд
+ * назад истек самый старый еще не удаленный токен.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TokenPurgeJob {
+    private static final String DELETE_SQL = """
+            DELETE FROM token WHERE id IN (
+                SELECT id FROM token WHERE expires_at < ? ORDER BY expires_at LIMIT ?
+            )
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${application.security.token-purge.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${application.security.token-purge.max-batches:100}")
+    private int maxBatches;
+
+    @Value("${application.security.token-purge.pause:100}")
+    private long pause;
+
+    private Counter purged;
+
+    private final AtomicLong lagSeconds = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        purged = Counter.builder("tokens.purged")
+                .description("Expired token rows deleted")
+                .register(meterRegistry);
+        Gauge.builder("tokens.purge.lag", lagSeconds, AtomicLong::get)
+                .description("Seconds since the oldest not yet purged token expired")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Удаляет истекшие токены
+     *
+     * @return количество удаленных строк
+     */
+    @Scheduled(
+            initialDelayString = "${application.security.token-purge.interval:600000}",
+            fixedDelayString = "${application.security.token-purge.interval:600000}"
+    )
+    public long purge() {
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp cutoff = Timestamp.valueOf(now);
+        long total = 0;
+        try {
+            for (int batch = 0; batch < maxBatches; batch++) {
+                int deleted = jdbcTemplate.update(DELETE_SQL, cutoff, batchSize);
+                total += deleted;
+                purged.increment(deleted);
+                if (deleted < batchSize)
+                    break;
+                Thread.sleep(pause);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.error("Token purge failed after {} rows: {}", total, e.getMessage());
+        }
+        updateLag(now);
+        if (total > 0)
+            log.info("Purged {} expired tokens", total);
+        return total;
+    }
+
+    private void updateLag(LocalDateTime now) {
+        try {
+            Timestamp oldest = jdbcTemplate.queryForObject(
+                    "SELECT MIN(expires_at) FROM token WHERE expires_at < ?", Timestamp.class, Timestamp.valueOf(now));
+            lagSeconds.set(oldest == null ? 0 : Duration.between(oldest.toLocalDateTime(), now).toSeconds());
+        } catch (RuntimeException e) {
+            log.warn("Failed to compute token purge lag: {}", e.getMessage());
+        }
+    }
+}
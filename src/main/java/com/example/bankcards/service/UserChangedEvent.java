@@ -0,0 +1,14 @@
+package com.example.bankcards.service;
+
+/**
+ * Событие изменения пользователя: регистрация, блокировка, разблокировка, перехэширование пароля.
+ * Сбрасывает снимок пользователя в {@link UserSnapshotCache}.
+ *
+ * @param userId идентификатор пользователя
+ * @param email email пользователя
+ */
+public record UserChangedEvent(
+        Long userId,
+        String email
+) {
+}
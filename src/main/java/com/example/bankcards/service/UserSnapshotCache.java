@@ -0,0 +1,144 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.user.UserSnapshot;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.repository.projection.UserChangeView;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Кэш снимков пользователей по email и по идентификатору.
+ * <p>
+ * Ограничен по размеру и времени жизни записи. Сбрасывается событием {@link UserChangedEvent}:
+ * сразу при публикации и повторно после фиксации транзакции, чтобы конкурентный запрос
+ * не закэшировал состояние пользователя до коммита. Кэши заполняются только своей загрузкой:
+ * сброс ждет загрузку того же ключа, а запись снимка в другой кэш после загрузки могла бы
+ * вернуть состояние до коммита уже после обоих сбросов.
+ * <p>
+ * Изменения, сделанные на других узлах, узел находит по столбцу {@code updated_at}: каждые
+ * {@code sync-interval} миллисекунд сбрасываются пользователи, измененные с прошлой синхронизации
+ * (с запасом на долгие транзакции и расхождение часов). Блокировка пользователя на другом узле
+ * действует здесь не позже чем через интервал синхронизации; время жизни записи - только
+ * страховка на случай сбоя синхронизации. Статистика попаданий и промахов
+ * публикуется в actuator как метрики {@code cache.gets} с тегом {@code cache}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UserSnapshotCache {
+    private static final Duration SYNC_OVERLAP = Duration.ofSeconds(30);
+
+    private final UserRepository userRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${application.security.user-cache.ttl:300000}")
+    private long ttl;
+
+    @Value("${application.security.user-cache.max-size:10000}")
+    private long maxSize;
+
+    private Cache<String, UserSnapshot> byEmail;
+
+    private Cache<Long, UserSnapshot> byId;
+
+    private volatile LocalDateTime lastSync;
+
+    @PostConstruct
+    void init() {
+        lastSync = LocalDateTime.now();
+        byEmail = newCache();
+        byId = newCache();
+        CaffeineCacheMetrics.monitor(meterRegistry, byEmail, "users.by-email");
+        CaffeineCacheMetrics.monitor(meterRegistry, byId, "users.by-id");
+    }
+
+    private <K> Cache<K, UserSnapshot> newCache() {
+        return Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(ttl))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Возвращает снимок пользователя по email, при промахе загружает его из базы
+     *
+     * @param email email пользователя
+     * @return снимок пользователя, если пользователь существует
+     */
+    public Optional<UserSnapshot> getByEmail(String email) {
+        return Optional.ofNullable(byEmail.get(email, key -> userRepository.findByEmail(key)
+                .map(UserSnapshot::from)
+                .orElse(null)));
+    }
+
+    /**
+     * Возвращает снимок пользователя по идентификатору, при промахе загружает его из базы
+     *
+     * @param id идентификатор пользователя
+     * @return снимок пользователя, если пользователь существует
+     */
+    public Optional<UserSnapshot> getById(Long id) {
+        return Optional.ofNullable(byId.get(id, key -> userRepository.findById(key)
+                .map(UserSnapshot::from)
+                .orElse(null)));
+    }
+
+    /**
+     * Сбрасывает снимок пользователя в момент публикации события
+     *
+     * @param event событие изменения пользователя
+     */
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        evict(event);
+    }
+
+    /**
+     * Повторно сбрасывает снимок пользователя после фиксации транзакции
+     *
+     * @param event событие изменения пользователя
+     */
+    @TransactionalEventListener
+    public void onUserChangedCommitted(UserChangedEvent event) {
+        evict(event);
+    }
+
+    /**
+     * Сбрасывает снимки пользователей, измененных с момента последней синхронизации,
+     * в том числе на других узлах
+     */
+    @Scheduled(fixedDelayString = "${application.security.user-cache.sync-interval:5000}")
+    public void sync() {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            List<UserChangeView> changed = userRepository.findChangedSince(lastSync.minus(SYNC_OVERLAP));
+            changed.forEach(user -> evict(new UserChangedEvent(user.getId(), user.getEmail())));
+            lastSync = now;
+        } catch (RuntimeException e) {
+            log.error("Failed to sync user snapshot cache: {}", e.getMessage());
+        }
+    }
+
+    private void evict(UserChangedEvent event) {
+        if (event.email() != null)
+            byEmail.invalidate(event.email());
+        if (event.userId() != null)
+            byId.invalidate(event.userId());
+    }
+}
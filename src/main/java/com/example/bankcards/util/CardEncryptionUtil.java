@@ -1,26 +1,136 @@
 package com.example.bankcards.util;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.Cipher;
+import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.MessageDigest;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Шифрование номеров карт и CVV.
+ * <p>
+ * Ключ AES вычисляется из секрета один раз при старте. Экземпляры {@link Cipher}
+ * не потокобезопасны, поэтому уже инициализированные шифраторы и дешифраторы берутся
+ * на время операции из {@link LockFreePool}: {@code doFinal} возвращает их в исходное
+ * состояние, и повторный {@code Cipher.getInstance} и {@code init} на каждую операцию не нужны.
+ * Пул, а не {@code ThreadLocal}, потому что при виртуальных потоках каждый запрос выполняется
+ * в новом потоке и кэш на поток не переиспользовался бы.
+ * <p>
+ * Отпечаток номера карты - HMAC-SHA256 на отдельном ключе. Он детерминирован и не зависит
+ * от режима шифрования, поэтому по нему ищутся карты и проверяется уникальность номера.
+ * <p>
+ * Длительность каждой операции над одним значением, в том числе внутри пакетных
+ * {@link #encryptAll} и {@link #decryptAll}, пишется в таймер {@code card.crypto} с тегом {@code operation}.
+ */
 @Component
+@RequiredArgsConstructor
 public class CardEncryptionUtil {
+    static final String CRYPTO_TIMER = "card.crypto";
+
+    private static final String TRANSFORMATION = "AES/ECB/PKCS5Padding";
+    private static final String FINGERPRINT_ALGORITHM = "HmacSHA256";
+    private static final int POOL_SIZE = Runtime.getRuntime().availableProcessors() * 2;
 
     @Value("${application.encryption.card-secret}")
     private String secret;
 
-    private SecretKeySpec getKey() throws Exception {
-        MessageDigest sha = MessageDigest.getInstance("SHA-256");
-        byte[] keyBytes = sha.digest(secret.getBytes(StandardCharsets.UTF_8));
-        byte[] key = new byte[16];
-        System.arraycopy(keyBytes, 0, key, 0, 16);
-        return new SecretKeySpec(key, "AES");
+    @Value("${application.encryption.fingerprint-secret}")
+    private String fingerprintSecret;
+
+    private SecretKeySpec key;
+
+    private SecretKeySpec fingerprintKey;
+
+    private final MeterRegistry meterRegistry;
+
+    private Timer encryptTimer;
+
+    private Timer decryptTimer;
+
+    private Timer fingerprintTimer;
+
+    private final LockFreePool<Cipher> encryptors = new LockFreePool<>(POOL_SIZE, () -> newCipher(Cipher.ENCRYPT_MODE));
+
+    private final LockFreePool<Cipher> decryptors = new LockFreePool<>(POOL_SIZE, () -> newCipher(Cipher.DECRYPT_MODE));
+
+    private final LockFreePool<Mac> fingerprinters = new LockFreePool<>(POOL_SIZE, this::newMac);
+
+    @PostConstruct
+    void init() {
+        key = deriveKey(secret);
+        fingerprintKey = new SecretKeySpec(fingerprintSecret.getBytes(StandardCharsets.UTF_8), FINGERPRINT_ALGORITHM);
+        encryptTimer = meterRegistry.timer(CRYPTO_TIMER, "operation", "encrypt");
+        decryptTimer = meterRegistry.timer(CRYPTO_TIMER, "operation", "decrypt");
+        fingerprintTimer = meterRegistry.timer(CRYPTO_TIMER, "operation", "fingerprint");
+    }
+
+    /**
+     * Вычисляет ключ AES-128 из секрета: первые 16 байт SHA-256
+     *
+     * @param secret секрет из конфигурации
+     * @return ключ AES
+     */
+    static SecretKeySpec deriveKey(String secret) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            byte[] keyBytes = sha.digest(secret.getBytes(StandardCharsets.UTF_8));
+            byte[] key = new byte[16];
+            System.arraycopy(keyBytes, 0, key, 0, 16);
+            return new SecretKeySpec(key, "AES");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Не удалось вычислить ключ шифрования", e);
+        }
+    }
+
+    private Cipher newCipher(int mode) {
+        try {
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(mode, key);
+            return cipher;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Не удалось инициализировать шифратор", e);
+        }
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(FINGERPRINT_ALGORITHM);
+            mac.init(fingerprintKey);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Не удалось инициализировать HMAC", e);
+        }
+    }
+
+    /**
+     * Вычисляет отпечаток номера карты
+     *
+     * @param cardNumber номер карты
+     * @return HMAC-SHA256 номера в hex (64 символа)
+     */
+    public String fingerprint(String cardNumber) {
+        if (cardNumber == null) {
+            return null;
+        }
+        long start = System.nanoTime();
+        Mac mac = fingerprinters.borrow();
+        byte[] fingerprint = mac.doFinal(cardNumber.getBytes(StandardCharsets.UTF_8));
+        fingerprinters.release(mac);
+        fingerprintTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return HexFormat.of().formatHex(fingerprint);
     }
 
     public String encryptCardNumber(String cardNumber) {
@@ -28,10 +138,7 @@ public class CardEncryptionUtil {
             return null;
         }
         try {
-            Cipher cipher = Cipher.getInstance("AES/ECB/PKCS5Padding");
-            cipher.init(Cipher.ENCRYPT_MODE, getKey());
-            byte[] encrypted = cipher.doFinal(cardNumber.getBytes(StandardCharsets.UTF_8));
-            return Base64.getEncoder().encodeToString(encrypted);
+            return encrypt(cardNumber);
         } catch (Exception e) {
             throw new RuntimeException("Ошибка при шифровании карты", e);
         }
@@ -42,10 +149,7 @@ public class CardEncryptionUtil {
             return null;
         }
         try {
-            Cipher cipher = Cipher.getInstance("AES/ECB/PKCS5Padding");
-            cipher.init(Cipher.DECRYPT_MODE, getKey());
-            byte[] decrypted = cipher.doFinal(Base64.getDecoder().decode(encryptedCardNumber));
-            return new String(decrypted, StandardCharsets.UTF_8);
+            return decrypt(encryptedCardNumber);
         } catch (Exception e) {
             throw new RuntimeException("Ошибка при расшифровке карты", e);
         }
@@ -56,13 +160,48 @@ public class CardEncryptionUtil {
             return null;
         }
         try {
-            Cipher cipher = Cipher.getInstance("AES/ECB/PKCS5Padding");
-            cipher.init(Cipher.ENCRYPT_MODE, getKey());
-            byte[] encrypted = cipher.doFinal(value.getBytes(StandardCharsets.UTF_8));
-            return Base64.getEncoder().encodeToString(encrypted);
+            return encrypt(value);
+        } catch (Exception e) {
+            throw new RuntimeException("Ошибка при шифровании", e);
+        }
+    }
+
+    /**
+     * Шифрует список значений одним шифратором из пула
+     *
+     * @param values открытые значения, {@code null} элементы сохраняются
+     * @return зашифрованные значения в том же порядке
+     */
+    public List<String> encryptAll(List<String> values) {
+        List<String> result = new ArrayList<>(values.size());
+        Cipher cipher = encryptors.borrow();
+        try {
+            for (String value : values)
+                result.add(value == null ? null : encrypt(cipher, value));
         } catch (Exception e) {
             throw new RuntimeException("Ошибка при шифровании", e);
         }
+        encryptors.release(cipher);
+        return result;
+    }
+
+    /**
+     * Расшифровывает список значений одним дешифратором из пула
+     *
+     * @param values зашифрованные значения, {@code null} элементы сохраняются
+     * @return открытые значения в том же порядке
+     */
+    public List<String> decryptAll(List<String> values) {
+        List<String> result = new ArrayList<>(values.size());
+        Cipher cipher = decryptors.borrow();
+        try {
+            for (String value : values)
+                result.add(value == null ? null : decrypt(cipher, value));
+        } catch (Exception e) {
+            throw new RuntimeException("Ошибка при расшифровке карты", e);
+        }
+        decryptors.release(cipher);
+        return result;
     }
 
     public String extractLastFourDigits(String cardNumber) {
@@ -71,4 +210,33 @@ public class CardEncryptionUtil {
         }
         return cardNumber.substring(cardNumber.length() - 4);
     }
+
+    // шифратор возвращается в пул только после успешной операции: после ошибки его состояние не гарантировано
+    private String encrypt(String value) throws GeneralSecurityException {
+        Cipher cipher = encryptors.borrow();
+        String encrypted = encrypt(cipher, value);
+        encryptors.release(cipher);
+        return encrypted;
+    }
+
+    private String decrypt(String value) throws GeneralSecurityException {
+        Cipher cipher = decryptors.borrow();
+        String decrypted = decrypt(cipher, value);
+        decryptors.release(cipher);
+        return decrypted;
+    }
+
+    private String encrypt(Cipher cipher, String value) throws GeneralSecurityException {
+        long start = System.nanoTime();
+        String encrypted = Base64.getEncoder().encodeToString(cipher.doFinal(value.getBytes(StandardCharsets.UTF_8)));
+        encryptTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return encrypted;
+    }
+
+    private String decrypt(Cipher cipher, String value) throws GeneralSecurityException {
+        long start = System.nanoTime();
+        String decrypted = new String(cipher.doFinal(Base64.getDecoder().decode(value)), StandardCharsets.UTF_8);
+        decryptTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return decrypted;
+    }
 }
@@ -0,0 +1,63 @@
+package com.example.bankcards.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Непрозрачные курсоры постраничной выборки по идентификатору
+ */
+public final class CursorUtil {
+    private static final String PREFIX = "id:";
+
+    private CursorUtil() {
+    }
+
+    /**
+     * Кодирует идентификатор последнего элемента страницы
+     *
+     * @param id идентификатор
+     * @return курсор
+     */
+    public static String encode(long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Возвращает идентификатор, после которого начинается страница
+     *
+     * @param cursor курсор, {@code null} - первая страница
+     * @return идентификатор, 0 для первой страницы
+     */
+    public static long decode(String cursor) {
+        if (cursor == null || cursor.isBlank())
+            return 0L;
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!value.startsWith(PREFIX))
+                throw new IllegalArgumentException("Invalid cursor");
+            long id = Long.parseLong(value.substring(PREFIX.length()));
+            if (id < 0)
+                throw new IllegalArgumentException("Invalid cursor");
+            return id;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    /**
+     * Возвращает размер страницы, выбранный клиентом, с учетом верхней границы
+     *
+     * @param limit        запрошенный размер, {@code null} - размер по умолчанию
+     * @param defaultLimit размер по умолчанию
+     * @param maxLimit     верхняя граница
+     * @return размер страницы
+     */
+    public static int resolveLimit(Integer limit, int defaultLimit, int maxLimit) {
+        if (limit == null)
+            return defaultLimit;
+        if (limit < 1)
+            throw new IllegalArgumentException("Limit must be positive");
+        return Math.min(limit, maxLimit);
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.bankcards.util;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/**
+ * Ограниченный пул объектов без блокировок.
+ * <p>
+ * Объекты лежат в ячейках массива и забираются и возвращаются через {@code compareAndSet},
+ * поэтому поток, в том числе виртуальный, никогда не ждет монитор или блокировку. Если свободных
+ * объектов нет, создается новый; если при возврате все ячейки заняты, объект отбрасывается.
+ * Объект, с которым операция завершилась ошибкой, возвращать не нужно.
+ *
+ * @param <T> тип объекта
+ */
+final class LockFreePool<T> {
+    private final AtomicReferenceArray<T> slots;
+    private final Supplier<T> factory;
+
+    LockFreePool(int capacity, Supplier<T> factory) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("Pool capacity must be positive");
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.factory = factory;
+    }
+
+    /**
+     * Забирает свободный объект из пула или создает новый
+     *
+     * @return объект в исключительном владении вызывающего потока
+     */
+    T borrow() {
+        int start = probe();
+        for (int i = 0; i < slots.length(); i++) {
+            int slot = (start + i) % slots.length();
+            T value = slots.get(slot);
+            if (value != null && slots.compareAndSet(slot, value, null))
+                return value;
+        }
+        return factory.get();
+    }
+
+    /**
+     * Возвращает объект в пул
+     *
+     * @param value объект, полученный из {@link #borrow()}
+     */
+    void release(T value) {
+        int start = probe();
+        for (int i = 0; i < slots.length(); i++) {
+            int slot = (start + i) % slots.length();
+            if (slots.get(slot) == null && slots.compareAndSet(slot, null, value))
+                return;
+        }
+    }
+
+    private int probe() {
+        return (int) (Thread.currentThread().threadId() % slots.length());
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.bankcards.util;
+
+/**
+ * Контрольная цифра номера карты по алгоритму Луна
+ */
+public final class LuhnUtil {
+
+    private LuhnUtil() {
+    }
+
+    /**
+     * Вычисляет контрольную цифру для номера без нее
+     *
+     * @param payload цифры номера без контрольной
+     * @return контрольная цифра
+     */
+    public static int checkDigit(CharSequence payload) {
+        int sum = 0;
+        boolean doubled = true;
+        for (int i = payload.length() - 1; i >= 0; i--) {
+            int digit = payload.charAt(i) - '0';
+            if (doubled) {
+                digit *= 2;
+                if (digit > 9)
+                    digit -= 9;
+            }
+            sum += digit;
+            doubled = !doubled;
+        }
+        return (10 - sum % 10) % 10;
+    }
+
+    /**
+     * Проверяет номер карты вместе с контрольной цифрой
+     *
+     * @param cardNumber номер карты
+     * @return {@code true}, если номер состоит из цифр и контрольная цифра верна
+     */
+    public static boolean isValid(String cardNumber) {
+        if (cardNumber == null || cardNumber.length() < 2 || !cardNumber.chars().allMatch(Character::isDigit))
+            return false;
+        int last = cardNumber.length() - 1;
+        return checkDigit(cardNumber.subSequence(0, last)) == cardNumber.charAt(last) - '0';
+    }
+}
@@ -0,0 +1,13 @@
+ALTER TABLE token
+ADD COLUMN IF NOT EXISTS created_at TIMESTAMP NOT NULL DEFAULT NOW();
+
+-- токены, выпущенные до V5, не имеют срока действия: считаем, что они живут
+-- не дольше refresh-токена (application.security.jwt.refresh-token.expiration, 7 дней)
+UPDATE token
+SET expires_at = created_at + INTERVAL '7 days'
+WHERE expires_at IS NULL;
+
+-- очистка истекших токенов идет по expires_at, выборки по пользователю - по (user_id, created_at)
+CREATE INDEX IF NOT EXISTS idx_token_expires_at ON token (expires_at);
+CREATE INDEX IF NOT EXISTS idx_token_user_id_created_at ON token (user_id, created_at);
+DROP INDEX IF EXISTS idx_token_user_id;
@@ -0,0 +1,13 @@
+-- ответы на переводы и пополнения по ключу Idempotency-Key: повтор запроса с тем же ключом
+-- возвращает сохраненный ответ; response пуст, пока транзакция первого запроса не зафиксирована
+CREATE TABLE IF NOT EXISTS idempotency_key (
+    user_id BIGINT NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    idempotency_key VARCHAR(255) NOT NULL,
+    request_hash VARCHAR(64) NOT NULL,
+    response TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    expires_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (user_id, idempotency_key)
+);
+
+CREATE INDEX IF NOT EXISTS idx_idempotency_key_expires_at ON idempotency_key (expires_at);
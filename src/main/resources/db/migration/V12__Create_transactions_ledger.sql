@@ -0,0 +1,14 @@
+-- журнал денежных операций: строки только добавляются, баланс карт по-прежнему в cards.balance
+CREATE TABLE IF NOT EXISTS transactions (
+    id BIGSERIAL PRIMARY KEY,
+    type VARCHAR(20) NOT NULL,
+    from_card_id BIGINT REFERENCES cards (id),
+    to_card_id BIGINT NOT NULL REFERENCES cards (id),
+    amount NUMERIC(19, 2) NOT NULL,
+    message TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+-- история операций по карте
+CREATE INDEX IF NOT EXISTS idx_transactions_from_card_id_created_at ON transactions (from_card_id, created_at);
+CREATE INDEX IF NOT EXISTS idx_transactions_to_card_id_created_at ON transactions (to_card_id, created_at);
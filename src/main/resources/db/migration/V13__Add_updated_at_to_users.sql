@@ -0,0 +1,5 @@
+-- время последнего изменения пользователя: по нему узлы сбрасывают кэш снимков пользователей
+ALTER TABLE users
+ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP NOT NULL DEFAULT now();
+
+CREATE INDEX IF NOT EXISTS idx_users_updated_at ON users (updated_at);
@@ -0,0 +1,14 @@
+ALTER TABLE token
+ADD COLUMN IF NOT EXISTS jti VARCHAR(64);
+
+ALTER TABLE token
+ADD COLUMN IF NOT EXISTS expires_at TIMESTAMP;
+
+ALTER TABLE token
+ADD COLUMN IF NOT EXISTS revoked_at TIMESTAMP;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uq_token_jti ON token (jti);
+CREATE INDEX IF NOT EXISTS idx_token_revoked_at ON token (revoked_at) WHERE revoked_at IS NOT NULL;
+
+-- токены, выпущенные до появления jti, ищутся по значению
+CREATE INDEX IF NOT EXISTS idx_token_token_hash ON token USING HASH (token);
@@ -0,0 +1,5 @@
+ALTER TABLE cards
+ADD COLUMN IF NOT EXISTS card_number_fingerprint VARCHAR(64);
+
+-- заполняется при старте приложения (CardFingerprintBackfill), ключ HMAC в базе не хранится
+CREATE UNIQUE INDEX IF NOT EXISTS uq_cards_card_number_fingerprint ON cards (card_number_fingerprint);
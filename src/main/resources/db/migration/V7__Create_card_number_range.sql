@@ -0,0 +1,11 @@
+-- диапазоны номеров карт по BIN: узлы резервируют блоки значений next_value и выдают их из памяти
+CREATE TABLE IF NOT EXISTS card_number_range (
+    bin VARCHAR(8) PRIMARY KEY,
+    next_value BIGINT NOT NULL DEFAULT 0,
+    capacity BIGINT NOT NULL
+);
+
+-- 16-значный номер: 6 цифр BIN, 9 цифр счета, контрольная цифра
+INSERT INTO card_number_range (bin, next_value, capacity)
+VALUES ('400000', 0, 1000000000)
+ON CONFLICT (bin) DO NOTHING;
@@ -0,0 +1,13 @@
+-- последовательности с шагом 50 для пакетной вставки (оптимизатор pooled-lo:
+-- одно значение nextval резервирует идентификаторы [v, v + 50))
+CREATE SEQUENCE IF NOT EXISTS users_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS cards_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS token_seq INCREMENT BY 50;
+
+SELECT setval('users_seq', COALESCE((SELECT MAX(id) FROM users), 0) + 1, false);
+SELECT setval('cards_seq', COALESCE((SELECT MAX(id) FROM cards), 0) + 1, false);
+SELECT setval('token_seq', COALESCE((SELECT MAX(id) FROM token), 0) + 1, false);
+
+ALTER TABLE users ALTER COLUMN id SET DEFAULT nextval('users_seq');
+ALTER TABLE cards ALTER COLUMN id SET DEFAULT nextval('cards_seq');
+ALTER TABLE token ALTER COLUMN id SET DEFAULT nextval('token_seq');
@@ -0,0 +1,9 @@
+-- токены пользователя, выпущенные раньше этой отметки, считаются отозванными
+ALTER TABLE users
+ADD COLUMN IF NOT EXISTS tokens_valid_after TIMESTAMP;
+
+CREATE INDEX IF NOT EXISTS idx_users_tokens_valid_after ON users (tokens_valid_after)
+WHERE tokens_valid_after IS NOT NULL;
+
+-- отзыв всех токенов пользователя затрагивает только действующие строки
+CREATE INDEX IF NOT EXISTS idx_token_user_id_active ON token (user_id) WHERE revoked = false;
@@ -0,0 +1,80 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.BankRestApplication;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+
+/**
+ * Приложение для бенчмарков с базой: поднимает контекст по настройкам application.yml
+ * (база из docker-compose) и подменяет источник данных на {@link RoundTripCountingDataSource}.
+ * {@link #start()} - без веб-сервера, {@link #startWeb(String...)} - с Tomcat на случайном порту
+ * и счетчиком одновременно обрабатываемых запросов.
+ */
+final class BenchmarkApplication implements AutoCloseable {
+    private final ConfigurableApplicationContext context;
+    private final InFlightRequestFilter inFlightRequestFilter = new InFlightRequestFilter();
+    private RoundTripCountingDataSource dataSource;
+
+    private BenchmarkApplication(WebApplicationType webApplicationType, String... properties) {
+        context = new SpringApplicationBuilder(BankRestApplication.class)
+                .web(webApplicationType)
+                .properties("spring.jpa.show-sql=false", "logging.level.root=WARN")
+                .initializers(ctx -> {
+                    ctx.getBeanFactory().addBeanPostProcessor(new BeanPostProcessor() {
+                        @Override
+                        public Object postProcessAfterInitialization(Object bean, String beanName) {
+                            if (bean instanceof DataSource target && !(bean instanceof RoundTripCountingDataSource)) {
+                                dataSource = new RoundTripCountingDataSource(target);
+                                return dataSource;
+                            }
+                            return bean;
+                        }
+                    });
+                    if (webApplicationType == WebApplicationType.SERVLET)
+                        ctx.getBeanFactory().registerSingleton("inFlightRequestFilter", inFlightRequestFilter);
+                })
+                // аргументы командной строки перекрывают application.yml, в отличие от properties()
+                .run(Arrays.stream(properties).map(property -> "--" + property).toArray(String[]::new));
+    }
+
+    static BenchmarkApplication start() {
+        return new BenchmarkApplication(WebApplicationType.NONE);
+    }
+
+    static BenchmarkApplication startWeb(String... properties) {
+        String[] quiet = {"server.port=0", "spring.jpa.show-sql=false",
+                "logging.level.org.springframework.security=WARN", "logging.level.org.springframework.web=WARN"};
+        String[] all = Arrays.copyOf(quiet, quiet.length + properties.length);
+        System.arraycopy(properties, 0, all, quiet.length, properties.length);
+        return new BenchmarkApplication(WebApplicationType.SERVLET, all);
+    }
+
+    int port() {
+        return context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+    }
+
+    <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    /**
+     * Возвращает максимум одновременно обрабатываемых запросов с прошлого вызова
+     */
+    int resetMaxInFlight() {
+        return inFlightRequestFilter.resetMaxInFlight();
+    }
+
+    long roundTrips() {
+        return dataSource.roundTrips();
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.util.CardEncryptionUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнивает пропускную способность CardEncryptionUtil до и после кэширования ключа:
+ * {@code legacy*} повторяют прежний код (SHA-256 и {@code Cipher.getInstance} на каждую операцию),
+ * остальные методы используют текущую реализацию. Одна операция - расшифровка пачки
+ * из {@code batchSize} номеров, как при выгрузке выписки.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CardEncryptionBenchmark {
+    private static final String SECRET = "benchmark-card-secret";
+
+    @Param({"1", "1000"})
+    private int batchSize;
+
+    private CardEncryptionUtil cardEncryptionUtil;
+    private List<String> encrypted;
+
+    @Setup
+    public void setUp() {
+        cardEncryptionUtil = new CardEncryptionUtil(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(cardEncryptionUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(cardEncryptionUtil, "fingerprintSecret", SECRET);
+        ReflectionTestUtils.invokeMethod(cardEncryptionUtil, "init");
+        List<String> numbers = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++)
+            numbers.add(String.format("4000%012d", i));
+        encrypted = cardEncryptionUtil.encryptAll(numbers);
+    }
+
+    @Benchmark
+    public List<String> legacyDecrypt() throws Exception {
+        List<String> result = new ArrayList<>(encrypted.size());
+        for (String value : encrypted)
+            result.add(legacyDecrypt(value));
+        return result;
+    }
+
+    @Benchmark
+    public List<String> decryptEach() {
+        List<String> result = new ArrayList<>(encrypted.size());
+        for (String value : encrypted)
+            result.add(cardEncryptionUtil.decryptCardNumber(value));
+        return result;
+    }
+
+    @Benchmark
+    public List<String> decryptAll() {
+        return cardEncryptionUtil.decryptAll(encrypted);
+    }
+
+    private static String legacyDecrypt(String value) throws Exception {
+        MessageDigest sha = MessageDigest.getInstance("SHA-256");
+        byte[] keyBytes = sha.digest(SECRET.getBytes(StandardCharsets.UTF_8));
+        byte[] key = new byte[16];
+        System.arraycopy(keyBytes, 0, key, 0, 16);
+        Cipher cipher = Cipher.getInstance("AES/ECB/PKCS5Padding");
+        cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(key, "AES"));
+        return new String(cipher.doFinal(Base64.getDecoder().decode(value)), StandardCharsets.UTF_8);
+    }
+}
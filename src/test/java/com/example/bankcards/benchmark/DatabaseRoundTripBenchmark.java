@@ -0,0 +1,97 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.dto.auth.AuthenticationRequest;
+import com.example.bankcards.dto.auth.RegistrationRequest;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.AuthenticationService;
+import com.example.bankcards.service.CardService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Считает обращения к базе на вход пользователя и на массовый выпуск карт.
+ * <p>
+ * Поднимает приложение с настройками из application.yml, поэтому нужна база
+ * из docker-compose ({@code docker-compose up -d}). Счетчик {@code roundTrips} считает
+ * запросы, пакеты и коммиты в секунду; отношение к основному результату - число обращений
+ * к базе на одну операцию.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class DatabaseRoundTripBenchmark {
+    private static final String PASSWORD = "benchmark-password";
+    private static final int BULK_SIZE = 100;
+
+    private BenchmarkApplication application;
+    private AuthenticationService authenticationService;
+    private CardService cardService;
+    private AuthenticationRequest login;
+    private List<Long> bulkUserIds;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class RoundTrips {
+        public long roundTrips;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            roundTrips = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        application = BenchmarkApplication.start();
+        authenticationService = application.getBean(AuthenticationService.class);
+        cardService = application.getBean(CardService.class);
+
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        String email = "bench-" + suffix + "@example.com";
+        authenticationService.register(new RegistrationRequest("bench-" + suffix, email, PASSWORD));
+        login = new AuthenticationRequest(email, PASSWORD);
+
+        String encoded = application.getBean(PasswordEncoder.class).encode(PASSWORD);
+        List<User> users = new ArrayList<>(BULK_SIZE);
+        for (int i = 0; i < BULK_SIZE; i++)
+            users.add(User.builder()
+                    .username("bench-" + suffix + "-" + i)
+                    .email("bench-" + suffix + "-" + i + "@example.com")
+                    .password(encoded)
+                    .roles(List.of(Role.ROLE_USER))
+                    .isActive(true)
+                    .build());
+        bulkUserIds = application.getBean(UserRepository.class).saveAll(users).stream().map(User::getId).toList();
+    }
+
+    @TearDown
+    public void tearDown() {
+        application.close();
+    }
+
+    @Benchmark
+    public Object login(RoundTrips counter) {
+        long before = application.roundTrips();
+        Object response = authenticationService.authenticate(login);
+        counter.roundTrips += application.roundTrips() - before;
+        return response;
+    }
+
+    @Benchmark
+    public Object bulkIssue(RoundTrips counter) {
+        long before = application.roundTrips();
+        Object cards = cardService.issueCards(bulkUserIds);
+        counter.roundTrips += application.roundTrips() - before;
+        return cards;
+    }
+}
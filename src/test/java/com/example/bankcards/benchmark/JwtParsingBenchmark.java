@@ -0,0 +1,299 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.entity.Token;
+import com.example.bankcards.repository.TokenRepository;
+import com.example.bankcards.security.CustomUserDetailsService;
+import com.example.bankcards.security.JwtAuthenticationFilter;
+import com.example.bankcards.security.JwtService;
+import com.example.bankcards.security.TokenRevocationIndex;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParserBuilder;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.mockito.ArgumentMatchers.anyString;
+
+/**
+ * Сравнивает стоимость обработки bearer-токена в фильтре аутентификации.
+ * {@code currentFilter} прогоняет запрос с заголовком {@code Authorization} через
+ * {@link JwtAuthenticationFilter}, {@code legacyFilter} - через копию прежнего фильтра,
+ * который разбирал и проверял токен в getUsername, getRoles и дважды в isTokenValid.
+ * Пользователь и строка токена в обоих случаях берутся из заглушек без базы, уровень логирования - WARN.
+ * <p>
+ * Счетчик {@code verifications} - число проверок подписи за итерацию по таймеру {@code auth.jwt}
+ * с {@code operation=parse}. Копия прежнего фильтра пишет в тот же таймер при каждом разборе,
+ * иначе она не отличается от исходного кода. Таймер общий для потоков, поэтому бенчмарк однопоточный.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+public class JwtParsingBenchmark {
+    private static final String SECRET = "b9901c31045cdaa3132d49ae24321f6e279608e9d57757931151995fbce2fc17";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final FilterChain chain = (request, response) -> { };
+    private JwtAuthenticationFilter currentFilter;
+    private LegacyJwtAuthenticationFilter legacyFilter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Verifications {
+        public long verifications;
+        private long before;
+
+        @Setup(Level.Iteration)
+        public void reset(JwtParsingBenchmark benchmark) {
+            verifications = 0;
+            before = benchmark.parsed();
+        }
+
+        @TearDown(Level.Iteration)
+        public void capture(JwtParsingBenchmark benchmark) {
+            verifications = benchmark.parsed() - before;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        // без конфигурации Spring Boot logback пишет DEBUG в консоль, и вывод забивает измерение
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME))
+                .setLevel(ch.qos.logback.classic.Level.WARN);
+
+        JwtService jwtService = new JwtService(meterRegistry);
+        ReflectionTestUtils.setField(jwtService, "secretKey", SECRET);
+        ReflectionTestUtils.setField(jwtService, "keyId", "primary");
+        ReflectionTestUtils.setField(jwtService, "previousKeys", List.of());
+        ReflectionTestUtils.setField(jwtService, "jwtExpiration", 1_800_000L);
+        ReflectionTestUtils.setField(jwtService, "refreshExpiration", 604_800_000L);
+        ReflectionTestUtils.invokeMethod(jwtService, "init");
+
+        UserDetails userDetails = User.withUsername("test@gmail.com")
+                .password("password")
+                .authorities(new SimpleGrantedAuthority("ROLE_USER"))
+                .build();
+        CustomUserDetailsService userDetailsService = new CustomUserDetailsService(null, null, null) {
+            @Override
+            public UserDetails loadUserByUsername(String email) {
+                return userDetails;
+            }
+        };
+        // индекс отзыва не загружен: оба фильтра по одному разу обращаются к хранилищу токенов
+        TokenRepository tokenRepository = Mockito.mock(TokenRepository.class);
+        Optional<Token> stored = Optional.of(Token.builder().expired(false).revoked(false).build());
+        Mockito.when(tokenRepository.findByJti(anyString())).thenReturn(stored);
+        Mockito.when(tokenRepository.findByToken(anyString())).thenReturn(stored);
+
+        currentFilter = new JwtAuthenticationFilter(jwtService, userDetailsService, tokenRepository,
+                new TokenRevocationIndex(tokenRepository, null), null);
+        legacyFilter = new LegacyJwtAuthenticationFilter(new LegacyJwtService(meterRegistry), userDetailsService, tokenRepository);
+
+        request = new MockHttpServletRequest("GET", "/api/v1/card");
+        request.addHeader("Authorization", "Bearer " + jwtService.generateToken(userDetails).value());
+        response = new MockHttpServletResponse();
+    }
+
+    private long parsed() {
+        return meterRegistry.find("auth.jwt").tag("operation", "parse").timers().stream()
+                .mapToLong(Timer::count)
+                .sum();
+    }
+
+    @Benchmark
+    public void legacyFilter(Verifications counter, Blackhole bh) throws Exception {
+        filter(legacyFilter, bh);
+    }
+
+    @Benchmark
+    public void currentFilter(Verifications counter, Blackhole bh) throws Exception {
+        filter(currentFilter, bh);
+    }
+
+    private void filter(OncePerRequestFilter filter, Blackhole bh) throws ServletException, IOException {
+        filter.doFilter(request, response, chain);
+        var authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null)
+            throw new IllegalStateException("Request was not authenticated");
+        bh.consume(authentication);
+        SecurityContextHolder.clearContext();
+    }
+
+    /**
+     * Копия прежнего JwtService: ключ выводится и парсер собирается на каждый разбор.
+     * Добавлена только запись в таймер {@code auth.jwt} в getAllClaimsFromToken.
+     */
+    static final class LegacyJwtService {
+        private static final org.slf4j.Logger log = LoggerFactory.getLogger(LegacyJwtService.class);
+        private final Timer parsedTimer;
+
+        LegacyJwtService(MeterRegistry meterRegistry) {
+            parsedTimer = meterRegistry.timer("auth.jwt", "operation", "parse", "outcome", "success");
+        }
+
+        private SecretKey getSigningKey() {
+            byte[] keyBytes = Decoders.BASE64URL.decode(SECRET);
+            return Keys.hmacShaKeyFor(keyBytes);
+        }
+
+        public boolean isTokenValid(String token, UserDetails userDetails) {
+            try {
+                final String username = getUsername(token);
+                return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
+            } catch (ExpiredJwtException e) {
+                log.warn("JWT token expired: {}", e.getMessage());
+            } catch (MalformedJwtException e) {
+                log.warn("Invalid JWT token format: {}", e.getMessage());
+            } catch (SignatureException e) {
+                log.error("JWT signature validation failed: {}", e.getMessage());
+            } catch (Exception e) {
+                log.error("Unexpected signature validation error: {}", e.getMessage());
+            }
+            return false;
+        }
+
+        private boolean isTokenExpired(String token) {
+            return extractExpiration(token).before(new Date());
+        }
+
+        private Date extractExpiration(String token) {
+            return extractClaim(token, Claims::getExpiration);
+        }
+
+        public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
+            final Claims claims = getAllClaimsFromToken(token);
+            return claimsResolver.apply(claims);
+        }
+
+        public String getUsername(String token) {
+            return getAllClaimsFromToken(token).getSubject();
+        }
+
+        @SuppressWarnings("unchecked")
+        public List<String> getRoles(String token) {
+            return getAllClaimsFromToken(token).get("roles", List.class);
+        }
+
+        private Claims getAllClaimsFromToken(String token) {
+            long start = System.nanoTime();
+            JwtParserBuilder parser = Jwts.parser();
+            parser.verifyWith(getSigningKey());
+            Claims claims = parser.build()
+                    .parseSignedClaims(token)
+                    .getPayload();
+            parsedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return claims;
+        }
+    }
+
+    /**
+     * Копия прежнего JwtAuthenticationFilter
+     */
+    static final class LegacyJwtAuthenticationFilter extends OncePerRequestFilter {
+        private static final org.slf4j.Logger log = LoggerFactory.getLogger(LegacyJwtAuthenticationFilter.class);
+        private final LegacyJwtService jwtService;
+        private final CustomUserDetailsService customUserDetailsService;
+        private final TokenRepository tokenRepository;
+
+        LegacyJwtAuthenticationFilter(LegacyJwtService jwtService, CustomUserDetailsService customUserDetailsService,
+                                      TokenRepository tokenRepository) {
+            this.jwtService = jwtService;
+            this.customUserDetailsService = customUserDetailsService;
+            this.tokenRepository = tokenRepository;
+        }
+
+        @Override
+        protected void doFilterInternal(
+                @NonNull HttpServletRequest request,
+                @NonNull HttpServletResponse response,
+                @NonNull FilterChain filterChain
+        ) throws ServletException, IOException {
+
+            String authHeader = request.getHeader("Authorization");
+            log.debug("Auth header: {}", authHeader);
+
+            String jwt = null;
+            String username = null;
+
+            if (authHeader != null && authHeader.startsWith("Bearer ")) {
+                jwt = authHeader.substring(7);
+                try {
+                    username = jwtService.getUsername(jwt);
+                    log.debug("Extracted username: {}", username);
+                    List<String> roles = jwtService.getRoles(jwt);
+                    log.debug("Extracted roles: {}", roles);
+                } catch (Exception e) {
+                    log.error("Token validation error: {}", e.getMessage());
+                    response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                    return;
+                }
+            }
+
+            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+                try {
+                    log.info("Attempting to load user by username: {}", username);
+                    UserDetails userDetails = customUserDetailsService.loadUserByUsername(username);
+
+                    var isTokenValid = tokenRepository.findByToken(jwt)
+                            .map(t -> !t.isExpired() && !t.isRevoked())
+                            .orElse(false);
+                    if (jwtService.isTokenValid(jwt, userDetails) && isTokenValid) {
+                        UsernamePasswordAuthenticationToken token = new UsernamePasswordAuthenticationToken(
+                                userDetails,
+                                null,
+                                userDetails.getAuthorities()
+                        );
+                        token.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                        SecurityContextHolder.getContext().setAuthentication(token);
+                        log.info("Authentication set in SecurityContext for user: {}", username);
+                    }
+                } catch (Exception e) {
+                    log.error("Failed to load user by username: {}, error: {}", username, e.getMessage());
+                }
+            } else if (username == null) {
+                log.warn("Username is null - JWT token validation failed");
+            } else {
+                log.debug("Authentication already exists in SecurityContext");
+            }
+            filterChain.doFilter(request, response);
+        }
+    }
+}
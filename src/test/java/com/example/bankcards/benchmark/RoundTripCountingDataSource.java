@@ -0,0 +1,75 @@
+package com.example.bankcards.benchmark;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Источник данных для бенчмарков, который считает обращения к базе:
+ * каждый execute*, executeBatch, commit и rollback - один round trip.
+ */
+class RoundTripCountingDataSource extends DelegatingDataSource {
+    private static final Set<String> STATEMENT_ROUND_TRIPS = Set.of(
+            "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+    private static final Set<String> CONNECTION_ROUND_TRIPS = Set.of("commit", "rollback");
+
+    private final AtomicLong roundTrips = new AtomicLong();
+
+    RoundTripCountingDataSource(DataSource target) {
+        super(target);
+    }
+
+    long roundTrips() {
+        return roundTrips.get();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrapConnection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrapConnection(super.getConnection(username, password));
+    }
+
+    private Connection wrapConnection(Connection connection) {
+        return proxy(Connection.class, connection, (proxy, method, args) -> {
+            if (CONNECTION_ROUND_TRIPS.contains(method.getName()))
+                roundTrips.incrementAndGet();
+            Object result = invoke(connection, method, args);
+            if (result instanceof Statement statement)
+                return wrapStatement(statement, method.getReturnType());
+            return result;
+        });
+    }
+
+    private Object wrapStatement(Statement statement, Class<?> type) {
+        return proxy(type, statement, (proxy, method, args) -> {
+            if (STATEMENT_ROUND_TRIPS.contains(method.getName()))
+                roundTrips.incrementAndGet();
+            return invoke(statement, method, args);
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Object target, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object invoke(Object target, java.lang.reflect.Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
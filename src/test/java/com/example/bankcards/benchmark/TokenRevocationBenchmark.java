@@ -0,0 +1,88 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.dto.auth.AuthenticationRequest;
+import com.example.bankcards.dto.auth.RegistrationRequest;
+import com.example.bankcards.dto.auth.AuthenticationResponse;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.AuthenticationService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Вход пользователя с {@code historicTokens} старыми отозванными токенами в таблице token.
+ * Отзыв сессий при входе - один UPDATE по действующим строкам и отметка в users, поэтому
+ * пропускная способность и счетчик {@code roundTrips} не должны зависеть от параметра.
+ * Нужна база из docker-compose.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class TokenRevocationBenchmark {
+    private static final String PASSWORD = "benchmark-password";
+
+    @Param({"0", "10000"})
+    private int historicTokens;
+
+    private BenchmarkApplication application;
+    private AuthenticationService authenticationService;
+    private AuthenticationRequest login;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class RoundTrips {
+        public long roundTrips;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            roundTrips = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        application = BenchmarkApplication.start();
+        authenticationService = application.getBean(AuthenticationService.class);
+
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        String email = "bench-" + suffix + "@example.com";
+        authenticationService.register(new RegistrationRequest("bench-" + suffix, email, PASSWORD));
+        login = new AuthenticationRequest(email, PASSWORD);
+
+        Long userId = application.getBean(UserRepository.class).findByEmail(email).orElseThrow().getId();
+        Timestamp expiresAt = Timestamp.valueOf(LocalDateTime.now().plusDays(7));
+        application.getBean(JdbcTemplate.class).batchUpdate("""
+                        INSERT INTO token (token, jti, token_type, expired, revoked, expires_at, revoked_at, user_id)
+                        VALUES (?, ?, 'ACCESS', true, true, ?, ?, ?)
+                        """,
+                Collections.nCopies(historicTokens, userId), 1000, (ps, id) -> {
+                    String jti = UUID.randomUUID().toString();
+                    ps.setString(1, "historic-" + jti);
+                    ps.setString(2, jti);
+                    ps.setTimestamp(3, expiresAt);
+                    ps.setTimestamp(4, Timestamp.valueOf(LocalDateTime.now()));
+                    ps.setLong(5, id);
+                });
+    }
+
+    @TearDown
+    public void tearDown() {
+        application.close();
+    }
+
+    @Benchmark
+    public AuthenticationResponse login(RoundTrips counter) {
+        long before = application.roundTrips();
+        AuthenticationResponse response = authenticationService.authenticate(login);
+        counter.roundTrips += application.roundTrips() - before;
+        return response;
+    }
+}
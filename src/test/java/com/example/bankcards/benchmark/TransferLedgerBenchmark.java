@@ -0,0 +1,78 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.dto.auth.RegistrationRequest;
+import com.example.bankcards.dto.transaction.MoneyTransactionRequestDto;
+import com.example.bankcards.dto.transaction.MoneyTransactionResponseDto;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.AuthenticationService;
+import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.LedgerWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Переводы в секунду с журналом операций ({@code ledger=true}) и без него.
+ * Запись журнала - один INSERT в той же транзакции перед фиксацией, поэтому разница
+ * показывает цену этого INSERT и индексов таблицы transactions.
+ * Нужна база из docker-compose.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class TransferLedgerBenchmark {
+    private static final BigDecimal AMOUNT = BigDecimal.ONE;
+
+    @Param({"true", "false"})
+    private boolean ledger;
+
+    private BenchmarkApplication application;
+    private CardService cardService;
+    private UserDetails userDetails;
+    private MoneyTransactionRequestDto forward;
+    private MoneyTransactionRequestDto backward;
+    private boolean direction;
+
+    @Setup
+    public void setUp() {
+        application = BenchmarkApplication.start();
+        cardService = application.getBean(CardService.class);
+        ReflectionTestUtils.setField(application.getBean(LedgerWriter.class), "enabled", ledger);
+
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        String email = "bench-" + suffix + "@example.com";
+        application.getBean(AuthenticationService.class)
+                .register(new RegistrationRequest("bench-" + suffix, email, "benchmark-password"));
+        Long userId = application.getBean(UserRepository.class).findByEmail(email).orElseThrow().getId();
+        cardService.issueCards(List.of(userId, userId));
+
+        JdbcTemplate jdbcTemplate = application.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("UPDATE cards SET balance = 1000000, expiration_date = CURRENT_DATE + 365 WHERE user_id = ?", userId);
+        List<Long> cardIds = jdbcTemplate.queryForList("SELECT id FROM cards WHERE user_id = ? ORDER BY id", Long.class, userId);
+
+        userDetails = User.withUsername(email).password("benchmark-password").authorities("ROLE_USER").build();
+        forward = new MoneyTransactionRequestDto(cardIds.get(0), cardIds.get(1), null, AMOUNT);
+        backward = new MoneyTransactionRequestDto(cardIds.get(1), cardIds.get(0), null, AMOUNT);
+    }
+
+    @TearDown
+    public void tearDown() {
+        application.close();
+    }
+
+    @Benchmark
+    public MoneyTransactionResponseDto transfer() {
+        direction = !direction;
+        return cardService.transactionBetweenCards(direction ? forward : backward, userDetails);
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.dto.auth.RegistrationRequest;
+import com.example.bankcards.service.AuthenticationService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Нагрузка на REST-слой с виртуальными потоками и без них.
+ * <p>
+ * Поднимает приложение с Tomcat на случайном порту и {@code spring.threads.virtual.enabled}
+ * из параметра {@code virtualThreads}, поэтому нужна база из docker-compose
+ * ({@code docker-compose up -d}). Клиентские потоки ({@code @Threads}) вызывают
+ * {@code GET /api/v1/card/keyset} - блокирующее чтение через JDBC. Режим SampleTime дает
+ * распределение задержки, p99 - строка {@code p0.99}. Вспомогательный счетчик {@code maxInFlight} -
+ * максимум запросов, которые сервер обрабатывал одновременно за итерацию: без виртуальных потоков его
+ * ограничивает {@code server.tomcat.threads.max} (200), с ними - только число соединений.
+ * Пул соединений Hikari ограничивает оба режима одинаково.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(400)
+@Fork(1)
+public class VirtualThreadLoadBenchmark {
+    private static final String PASSWORD = "benchmark-password";
+
+    @Param({"false", "true"})
+    private boolean virtualThreads;
+
+    private BenchmarkApplication application;
+    private HttpClient client;
+    private HttpRequest request;
+    private final AtomicBoolean maxInFlightClaimed = new AtomicBoolean();
+
+    /**
+     * JMH суммирует вспомогательные счетчики по потокам, поэтому максимум итерации забирает
+     * только первый завершивший ее поток, у остальных счетчик равен нулю
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class InFlight {
+        public long maxInFlight;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            maxInFlight = 0;
+        }
+
+        @TearDown(Level.Iteration)
+        public void capture(VirtualThreadLoadBenchmark benchmark) {
+            maxInFlight = benchmark.claimMaxInFlight();
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        application = BenchmarkApplication.startWeb("spring.threads.virtual.enabled=" + virtualThreads);
+
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        String token = application.getBean(AuthenticationService.class)
+                .register(new RegistrationRequest("bench-" + suffix, "bench-" + suffix + "@example.com", PASSWORD))
+                .accessToken();
+
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        request = HttpRequest.newBuilder(URI.create("http://localhost:" + application.port() + "/api/v1/card/keyset"))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+    }
+
+    @Setup(Level.Iteration)
+    public void resetInFlight() {
+        application.resetMaxInFlight();
+        maxInFlightClaimed.set(false);
+    }
+
+    private int claimMaxInFlight() {
+        return maxInFlightClaimed.compareAndSet(false, true) ? application.resetMaxInFlight() : 0;
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.close();
+        application.close();
+    }
+
+    @Benchmark
+    public int listCards(InFlight inFlight) throws IOException, InterruptedException {
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200)
+            throw new IllegalStateException("Unexpected status " + response.statusCode());
+        return response.statusCode();
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.Semaphore;
+
+public class AdaptiveBCryptPasswordEncoderTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void calibrate_staysWithinBounds() {
+        AdaptiveBCryptPasswordEncoder encoder = newEncoder(0, 1);
+        ReflectionTestUtils.setField(encoder, "targetHashTime", 0L);
+        Assertions.assertEquals(4, encoder.calibrate());
+
+        ReflectionTestUtils.setField(encoder, "targetHashTime", Long.MAX_VALUE);
+        Assertions.assertEquals(6, encoder.calibrate());
+    }
+
+    @Test
+    void upgradeEncoding_whenStrengthDiffersEitherWay() {
+        AdaptiveBCryptPasswordEncoder encoder = newEncoder(5, 1);
+        String current = encoder.encode("password");
+
+        Assertions.assertTrue(encoder.matches("password", current));
+        Assertions.assertFalse(encoder.upgradeEncoding(current));
+        Assertions.assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("password")));
+        Assertions.assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode("password")));
+    }
+
+    @Test
+    void encode_rejectedWhenNoPermitAvailable() {
+        AdaptiveBCryptPasswordEncoder encoder = newEncoder(4, 1);
+        Semaphore permits = (Semaphore) ReflectionTestUtils.getField(encoder, "permits");
+        permits.acquireUninterruptibly();
+
+        Assertions.assertThrows(ServiceOverloadedException.class, () -> encoder.encode("password"));
+        Assertions.assertEquals(1.0, meterRegistry.counter("auth.password.hash.rejected").count());
+
+        permits.release();
+        Assertions.assertNotNull(encoder.encode("password"));
+    }
+
+    private AdaptiveBCryptPasswordEncoder newEncoder(int strength, int maxConcurrentHashes) {
+        AdaptiveBCryptPasswordEncoder encoder = new AdaptiveBCryptPasswordEncoder(meterRegistry);
+        ReflectionTestUtils.setField(encoder, "configuredStrength", strength);
+        ReflectionTestUtils.setField(encoder, "targetHashTime", 250L);
+        ReflectionTestUtils.setField(encoder, "minStrength", 4);
+        ReflectionTestUtils.setField(encoder, "maxStrength", 6);
+        ReflectionTestUtils.setField(encoder, "maxConcurrentHashes", maxConcurrentHashes);
+        ReflectionTestUtils.setField(encoder, "hashWaitTimeout", 10L);
+        encoder.init();
+        return encoder;
+    }
+}
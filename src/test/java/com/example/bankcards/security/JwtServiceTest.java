@@ -0,0 +1,106 @@
+package com.example.bankcards.security;
+
+import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+public class JwtServiceTest {
+    private static final String SECRET = "b9901c31045cdaa3132d49ae24321f6e279608e9d57757931151995fbce2fc17";
+    private static final String NEW_SECRET = "c0012d42156debb4243e5abf35432a7f38a719f0e68868a42262aa6acdf3ad28";
+
+    private JwtService jwtService;
+    private UserDetails userDetails;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = newJwtService("primary", List.of());
+        userDetails = User.withUsername("test@gmail.com")
+                .password("password")
+                .authorities(new SimpleGrantedAuthority("ROLE_USER"))
+                .build();
+    }
+
+    @Test
+    void generateToken_ok() {
+        JwtToken generated = jwtService.generateToken(userDetails);
+        JwtToken token = jwtService.parse(generated.value());
+
+        Assertions.assertEquals(generated.issuedAt(), token.issuedAt());
+
+        Assertions.assertEquals("test@gmail.com", token.subject());
+        Assertions.assertEquals(List.of("ROLE_USER"), token.roles());
+        Assertions.assertTrue(token.isAccessToken());
+        Assertions.assertNotNull(token.jti());
+        Assertions.assertTrue(jwtService.isTokenValid(token, userDetails));
+    }
+
+    @Test
+    void generateToken_sameSecondLoginRevokesPreviousToken() {
+        TokenRevocationIndex revocationIndex = new TokenRevocationIndex(null, null);
+        ReflectionTestUtils.setField(revocationIndex, "maxEntries", 10);
+        ReflectionTestUtils.setField(revocationIndex, "refreshExpiration", 120_000L);
+
+        // два входа подряд: iat в секундах у токенов чаще всего совпадает
+        JwtToken first = jwtService.parse(jwtService.generateToken(userDetails).value());
+        JwtToken second = jwtService.generateToken(userDetails);
+        revocationIndex.revokeIssuedBefore(second.subject(), second.issuedAt());
+
+        Assertions.assertTrue(first.issuedAt().isBefore(second.issuedAt()));
+        Assertions.assertEquals(second.issuedAt(), jwtService.parse(second.value()).issuedAt());
+        Assertions.assertEquals(TokenRevocationIndex.Status.REVOKED, revocationIndex.check(first));
+        Assertions.assertNotEquals(TokenRevocationIndex.Status.REVOKED, revocationIndex.check(second));
+    }
+
+    @Test
+    void generateRefreshToken_ok() {
+        JwtToken token = jwtService.parse(jwtService.generateRefreshToken(userDetails).value());
+
+        Assertions.assertTrue(token.isRefreshToken());
+        Assertions.assertFalse(token.isAccessToken());
+        Assertions.assertNotNull(token.jti());
+    }
+
+    @Test
+    void previousKeys_droppedFromConfigurationRejected() {
+        String oldToken = jwtService.generateToken(userDetails).value();
+
+        JwtService rotatedService = newJwtService("next", List.of());
+        ReflectionTestUtils.setField(rotatedService, "secretKey", NEW_SECRET);
+        rotatedService.init();
+
+        Assertions.assertEquals(List.of("next"), rotatedService.getAcceptedKeyIds());
+        Assertions.assertThrows(SignatureException.class, () -> rotatedService.parse(oldToken));
+    }
+
+    @Test
+    void previousKeys_acceptedFromConfiguration() {
+        JwtService oldService = newJwtService("old", List.of());
+        String oldToken = oldService.generateToken(userDetails).value();
+
+        JwtService rotatedService = newJwtService("primary", List.of("old:" + SECRET));
+        ReflectionTestUtils.setField(rotatedService, "secretKey", NEW_SECRET);
+        rotatedService.init();
+
+        Assertions.assertEquals(List.of("primary", "old"), rotatedService.getAcceptedKeyIds());
+        Assertions.assertTrue(rotatedService.isTokenValid(rotatedService.parse(oldToken), userDetails));
+    }
+
+    private JwtService newJwtService(String keyId, List<String> previousKeys) {
+        JwtService service = new JwtService(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "secretKey", SECRET);
+        ReflectionTestUtils.setField(service, "keyId", keyId);
+        ReflectionTestUtils.setField(service, "previousKeys", previousKeys);
+        ReflectionTestUtils.setField(service, "jwtExpiration", 60_000L);
+        ReflectionTestUtils.setField(service, "refreshExpiration", 120_000L);
+        service.init();
+        return service;
+    }
+}
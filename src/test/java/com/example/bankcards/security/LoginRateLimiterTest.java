@@ -0,0 +1,86 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class LoginRateLimiterTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private LoginRateLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        limiter = new LoginRateLimiter(meterRegistry);
+        ReflectionTestUtils.setField(limiter, "enabled", true);
+        ReflectionTestUtils.setField(limiter, "maxKeys", 1000L);
+        ReflectionTestUtils.setField(limiter, "authenticateAddressCapacity", 2);
+        ReflectionTestUtils.setField(limiter, "authenticateEmailCapacity", 3);
+        ReflectionTestUtils.setField(limiter, "registrationAddressCapacity", 1);
+        ReflectionTestUtils.setField(limiter, "refreshAddressCapacity", 1);
+        ReflectionTestUtils.setField(limiter, "maxFailures", 2);
+        ReflectionTestUtils.setField(limiter, "lockoutWindow", 60_000L);
+        limiter.init();
+    }
+
+    @Test
+    void checkAddress_throttlesPerEndpointAndAddress() {
+        limiter.checkAddress(LoginRateLimiter.AUTHENTICATE, "10.0.0.1");
+        limiter.checkAddress(LoginRateLimiter.AUTHENTICATE, "10.0.0.1");
+
+        TooManyRequestsException e = Assertions.assertThrows(TooManyRequestsException.class,
+                () -> limiter.checkAddress(LoginRateLimiter.AUTHENTICATE, "10.0.0.1"));
+        Assertions.assertTrue(e.getRetryAfterSeconds() >= 1);
+
+        limiter.checkAddress(LoginRateLimiter.AUTHENTICATE, "10.0.0.2");
+        limiter.checkAddress(LoginRateLimiter.REGISTRATION, "10.0.0.1");
+        Assertions.assertEquals(1.0, meterRegistry.counter("auth.rate-limit.throttled",
+                "endpoint", LoginRateLimiter.AUTHENTICATE, "reason", "address").count());
+    }
+
+    @Test
+    void checkEmail_locksOutAfterFailuresAndSuccessResets() {
+        limiter.recordFailure("Test@gmail.com");
+        limiter.checkEmail("test@gmail.com");
+        limiter.recordFailure("test@gmail.com");
+
+        Assertions.assertThrows(TooManyRequestsException.class, () -> limiter.checkEmail("test@gmail.com"));
+        Assertions.assertEquals(1.0, meterRegistry.counter("auth.rate-limit.throttled",
+                "endpoint", LoginRateLimiter.AUTHENTICATE, "reason", "lockout").count());
+
+        limiter.recordSuccess("test@gmail.com");
+        limiter.checkEmail("test@gmail.com");
+    }
+
+    @Test
+    void checkEmail_throttlesWithoutFailures() {
+        limiter.checkEmail("test@gmail.com");
+        limiter.checkEmail("test@gmail.com");
+        limiter.checkEmail("test@gmail.com");
+
+        Assertions.assertThrows(TooManyRequestsException.class, () -> limiter.checkEmail("test@gmail.com"));
+    }
+
+    @Test
+    void filter_throttlesPercentEncodedPath() throws Exception {
+        LoginRateLimitFilter filter = new LoginRateLimitFilter(limiter);
+
+        MockHttpServletResponse response = null;
+        for (int i = 0; i < 3; i++) {
+            // контейнер отдает requestURI как есть, а servletPath - декодированным
+            MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/auth/%61uthenticate");
+            request.setServletPath("/api/v1/auth/authenticate");
+            request.setRemoteAddr("10.0.0.1");
+            response = new MockHttpServletResponse();
+            filter.doFilter(request, response, new MockFilterChain());
+        }
+
+        Assertions.assertEquals(429, response.getStatus());
+        Assertions.assertNotNull(response.getHeader("Retry-After"));
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.repository.TokenRepository;
+import com.example.bankcards.repository.UserRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TokenRevocationIndexTest {
+    @Mock
+    private TokenRepository tokenRepository;
+    @Mock
+    private UserRepository userRepository;
+
+    @InjectMocks
+    private TokenRevocationIndex revocationIndex;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(revocationIndex, "maxEntries", 2);
+        ReflectionTestUtils.setField(revocationIndex, "refreshExpiration", 60_000L);
+    }
+
+    @Test
+    void check_unknownBeforeLoad() {
+        Assertions.assertEquals(TokenRevocationIndex.Status.UNKNOWN, revocationIndex.check(token("a")));
+    }
+
+    @Test
+    void check_activeAndRevokedAfterLoad() {
+        when(tokenRepository.findRevokedSince(any(), any())).thenReturn(List.of());
+        revocationIndex.reload();
+
+        revocationIndex.revoke("a", Instant.now().plusSeconds(60));
+
+        Assertions.assertEquals(TokenRevocationIndex.Status.REVOKED, revocationIndex.check(token("a")));
+        Assertions.assertEquals(TokenRevocationIndex.Status.ACTIVE, revocationIndex.check(token("b")));
+        Assertions.assertEquals(TokenRevocationIndex.Status.UNKNOWN, revocationIndex.check(token(null)));
+    }
+
+    @Test
+    void revoke_expiredTokenNotStored() {
+        revocationIndex.revoke("a", Instant.now().minusSeconds(1));
+
+        Assertions.assertEquals(0, revocationIndex.size());
+    }
+
+    @Test
+    void revoke_overflowFallsBackToDatabase() {
+        when(tokenRepository.findRevokedSince(any(), any())).thenReturn(List.of());
+        revocationIndex.reload();
+
+        revocationIndex.revoke("a", Instant.now().plusSeconds(60));
+        revocationIndex.revoke("b", Instant.now().plusSeconds(60));
+        revocationIndex.revoke("c", Instant.now().plusSeconds(60));
+
+        Assertions.assertEquals(TokenRevocationIndex.Status.REVOKED, revocationIndex.check(token("a")));
+        Assertions.assertEquals(TokenRevocationIndex.Status.UNKNOWN, revocationIndex.check(token("c")));
+    }
+
+    @Test
+    void revokeIssuedBefore_revokesOlderTokensOfSubject() {
+        Instant now = Instant.now();
+        revocationIndex.revokeIssuedBefore("test@gmail.com", now);
+
+        Assertions.assertEquals(TokenRevocationIndex.Status.REVOKED, revocationIndex.check(token(null, now.minusSeconds(1))));
+        Assertions.assertEquals(TokenRevocationIndex.Status.UNKNOWN, revocationIndex.check(token("a", now)));
+    }
+
+    private JwtToken token(String jti) {
+        return token(jti, Instant.now());
+    }
+
+    private JwtToken token(String jti, Instant issuedAt) {
+        return new JwtToken("value", "test@gmail.com", List.of(), JwtToken.ACCESS_TYPE, jti,
+                issuedAt, issuedAt.plusSeconds(60));
+    }
+}
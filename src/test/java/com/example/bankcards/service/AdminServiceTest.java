@@ -1,5 +1,7 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.dto.card.CardResponseDto;
+import com.example.bankcards.dto.page.CursorPageDto;
 import com.example.bankcards.dto.user.AdminUserDto;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.CardStatus;
@@ -8,15 +10,21 @@ import com.example.bankcards.mapper.CardMapper;
 import com.example.bankcards.mapper.UserMapper;
 import com.example.bankcards.repository.CardRepository;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.util.CursorUtil;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.util.List;
 import java.util.Optional;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -31,6 +39,8 @@ public class AdminServiceTest {
     private UserMapper userMapper;
     @Mock
     private CardService cardService;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
 
     @InjectMocks
     private AdminService adminService;
@@ -100,6 +110,7 @@ public class AdminServiceTest {
 
         Assertions.assertNotNull(result);
         Assertions.assertFalse(result.isActive());
+        verify(eventPublisher).publishEvent(new UserChangedEvent(userId, "test@gmail.com"));
     }
 
     @Test
@@ -117,4 +128,37 @@ public class AdminServiceTest {
 
         Assertions.assertEquals(CardStatus.BLOCKED, card.getStatus());
     }
+
+    @Test
+    void getCardsAfter_returnsCursorWhenMoreRowsExist() {
+        ReflectionTestUtils.setField(adminService, "maxLimit", 2);
+        Card first = Card.builder().id(5L).build();
+        Card second = Card.builder().id(7L).build();
+        Card third = Card.builder().id(9L).build();
+
+        when(cardRepository.findByIdGreaterThanOrderByIdAsc(3L, Limit.of(3))).thenReturn(List.of(first, second, third));
+        when(cardMapper.toDto(any())).thenAnswer(invocation -> {
+            Card card = invocation.getArgument(0);
+            return new CardResponseDto(card.getId(), null, null, null, null, null);
+        });
+
+        CursorPageDto<CardResponseDto> page = adminService.getCardsAfter(CursorUtil.encode(3L), 50);
+
+        Assertions.assertEquals(List.of(5L, 7L), page.items().stream().map(CardResponseDto::id).toList());
+        Assertions.assertEquals(7L, CursorUtil.decode(page.nextCursor()));
+    }
+
+    @Test
+    void getUsersAfter_lastPageHasNoCursor() {
+        ReflectionTestUtils.setField(adminService, "defaultLimit", 20);
+        User user = User.builder().id(1L).build();
+
+        when(userRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(21))).thenReturn(List.of(user));
+        when(userMapper.toAdminDto(user)).thenReturn(new AdminUserDto(1L, null, null, null, true, null));
+
+        CursorPageDto<AdminUserDto> page = adminService.getUsersAfter(null, null);
+
+        Assertions.assertEquals(1, page.items().size());
+        Assertions.assertNull(page.nextCursor());
+    }
 }
@@ -0,0 +1,61 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+public class AuthTaskExecutorTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private AuthTaskExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = new AuthTaskExecutor(meterRegistry);
+        ReflectionTestUtils.setField(executor, "poolSize", 1);
+        ReflectionTestUtils.setField(executor, "queueCapacity", 1);
+        executor.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void submit_runsOnAuthThread() {
+        String thread = executor.submit(() -> Thread.currentThread().getName()).join();
+
+        Assertions.assertTrue(thread.startsWith("auth-"), thread);
+    }
+
+    @Test
+    void submit_rejectsWhenQueueIsFull() {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Boolean> running = executor.submit(() -> await(release));
+        CompletableFuture<Boolean> queued = executor.submit(() -> true);
+
+        Assertions.assertThrows(ServiceOverloadedException.class, () -> executor.submit(() -> true));
+        Assertions.assertEquals(1.0, meterRegistry.counter("auth.executor.rejected").count());
+
+        release.countDown();
+        Assertions.assertTrue(running.join());
+        Assertions.assertTrue(queued.join());
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            latch.await();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
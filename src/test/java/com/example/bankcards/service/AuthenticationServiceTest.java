@@ -4,22 +4,35 @@ import com.example.bankcards.dto.auth.AuthenticationRequest;
 import com.example.bankcards.dto.auth.AuthenticationResponse;
 import com.example.bankcards.dto.auth.RegistrationRequest;
 import com.example.bankcards.dto.user.UserDto;
+import com.example.bankcards.dto.user.UserSnapshot;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.mapper.UserMapper;
 import com.example.bankcards.repository.TokenRepository;
 import com.example.bankcards.repository.UserRepository;
 import com.example.bankcards.security.CustomUserDetailsService;
 import com.example.bankcards.security.JwtService;
+import com.example.bankcards.security.LoginRateLimiter;
+import com.example.bankcards.security.JwtToken;
+import com.example.bankcards.security.TokenRevocationIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
@@ -42,11 +55,30 @@ public class AuthenticationServiceTest {
     @Mock
     private TokenRepository tokenRepository;
     @Mock
+    private TokenRevocationIndex revocationIndex;
+    @Mock
+    private UserSnapshotCache userSnapshotCache;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private LoginRateLimiter loginRateLimiter;
+    @Mock
     private UserDetails userDetails;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate();
+    @Spy
+    private OperationMetrics operationMetrics = new OperationMetrics(new SimpleMeterRegistry());
 
     @InjectMocks
     private AuthenticationService authenticationService;
 
+    @BeforeEach
+    void setUp() {
+        transactionTemplate.setTransactionManager(transactionManager);
+    }
+
     @Test
     void register_ok() {
         RegistrationRequest request = new RegistrationRequest(
@@ -68,9 +100,8 @@ public class AuthenticationServiceTest {
         when(userMapper.toEntity(request)).thenReturn(user);
         when(passwordEncoder.encode("password123")).thenReturn("encoded_password");
         when(userRepository.save(any(User.class))).thenReturn(user);
-        when(customUserDetailsService.loadUserByUsername("test@gmail.com")).thenReturn(userDetails);
-        when(jwtService.generateToken(userDetails)).thenReturn("access_token");
-        when(jwtService.generateRefreshToken(userDetails)).thenReturn("refresh_token");
+        when(jwtService.generateToken(any(UserDetails.class))).thenReturn(jwtToken("access_token", JwtToken.ACCESS_TYPE));
+        when(jwtService.generateRefreshToken(any(UserDetails.class))).thenReturn(jwtToken("refresh_token", JwtToken.REFRESH_TYPE));
         when(userMapper.toDto(user)).thenReturn(userDto);
 
         AuthenticationResponse result = authenticationService.register(request);
@@ -78,6 +109,7 @@ public class AuthenticationServiceTest {
         Assertions.assertNotNull(result);
         Assertions.assertTrue(result.success());
         Assertions.assertEquals("access_token", result.accessToken());
+        verify(eventPublisher).publishEvent(new UserChangedEvent(1L, "test@gmail.com"));
     }
 
     @Test
@@ -110,17 +142,40 @@ public class AuthenticationServiceTest {
 
         UserDto userDto = new UserDto(1L, "testuser", "test@gmail.com");
 
-        when(userRepository.findByEmail("test@gmail.com")).thenReturn(Optional.of(user));
+        when(userSnapshotCache.getByEmail("test@gmail.com")).thenReturn(Optional.of(UserSnapshot.from(user)));
+        when(userRepository.getReferenceById(1L)).thenReturn(user);
         when(customUserDetailsService.loadUserByUsername("test@gmail.com")).thenReturn(userDetails);
-        when(jwtService.generateToken(userDetails)).thenReturn("access_token");
-        when(jwtService.generateRefreshToken(userDetails)).thenReturn("refresh_token");
-        when(tokenRepository.findAllValidTokensByUser(anyInt())).thenReturn(java.util.Collections.emptyList());
-        when(userMapper.toDto(user)).thenReturn(userDto);
+        when(jwtService.generateToken(userDetails)).thenReturn(jwtToken("access_token", JwtToken.ACCESS_TYPE));
+        when(jwtService.generateRefreshToken(userDetails)).thenReturn(jwtToken("refresh_token", JwtToken.REFRESH_TYPE));
+        when(userMapper.toDto(any(UserSnapshot.class))).thenReturn(userDto);
 
         AuthenticationResponse result = authenticationService.authenticate(request);
 
         Assertions.assertNotNull(result);
         Assertions.assertTrue(result.success());
         Assertions.assertEquals("access_token", result.accessToken());
+        verify(tokenRepository).revokeAllValidTokensByUser(eq(1L), any());
+        verify(userRepository).updateTokensValidAfter(eq(1L), any());
+        verify(revocationIndex).revokeIssuedBefore(eq("test@gmail.com"), any(Instant.class));
+        verify(tokenRepository, never()).saveAll(any());
+
+        // пароль проверяется до начала транзакции, соединение на время BCrypt не занимается
+        InOrder inOrder = inOrder(authenticationManager, transactionManager, tokenRepository);
+        inOrder.verify(authenticationManager).authenticate(any());
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(tokenRepository).revokeAllValidTokensByUser(eq(1L), any());
+        inOrder.verify(transactionManager).commit(any());
+    }
+
+    private JwtToken jwtToken(String value, String type) {
+        return new JwtToken(
+                value,
+                "test@gmail.com",
+                List.of("ROLE_USER"),
+                type,
+                value + "-jti",
+                Instant.now(),
+                Instant.now().plusSeconds(60)
+        );
     }
 }
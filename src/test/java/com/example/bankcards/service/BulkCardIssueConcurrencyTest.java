@@ -0,0 +1,135 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.UserRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Два одновременных массовых выпуска на H2 с одними и теми же пользователями, причем каждый
+ * пользователь встречается во входе дважды и попадает в разные пачки. У каждого пользователя
+ * должна оказаться ровно одна карта. Несуществующий пользователь в пачке не мешает выпуску
+ * остальным.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+public class BulkCardIssueConcurrencyTest {
+    private static final int USERS = 12;
+    private static final int JOBS = 2;
+
+    @Autowired
+    private CardService cardService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        // в тестовом профиле схема создается Hibernate без миграций
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS card_number_range (
+                    bin VARCHAR(8) PRIMARY KEY, next_value BIGINT NOT NULL DEFAULT 0, capacity BIGINT NOT NULL)
+                """);
+        jdbcTemplate.update("MERGE INTO card_number_range (bin, next_value, capacity) KEY (bin) VALUES ('400000', 0, 1000000000)");
+    }
+
+    @Test
+    void issue_duplicateIdsAcrossChunksAndJobs_oneCardPerUser() throws Exception {
+        List<Long> userIds = createUsers("bulk", USERS);
+
+        List<BulkCardIssueService> services = new ArrayList<>();
+        List<CompletableFuture<Void>> jobs = new ArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        for (int j = 0; j < JOBS; j++) {
+            BulkCardIssueService service = new BulkCardIssueService(cardService, objectMapper);
+            ReflectionTestUtils.setField(service, "chunkSize", 2);
+            ReflectionTestUtils.setField(service, "parallelism", 2);
+            ReflectionTestUtils.invokeMethod(service, "init");
+            services.add(service);
+
+            List<Long> input = new ArrayList<>(userIds);
+            List<Long> repeated = new ArrayList<>(userIds);
+            Collections.shuffle(input);
+            Collections.shuffle(repeated);
+            input.addAll(repeated);
+            jobs.add(CompletableFuture.runAsync(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                service.issue(input.iterator(), new ByteArrayOutputStream());
+            }));
+        }
+        start.countDown();
+        CompletableFuture.allOf(jobs.toArray(CompletableFuture[]::new)).get(1, TimeUnit.MINUTES);
+        services.forEach(service -> ReflectionTestUtils.invokeMethod(service, "shutdown"));
+
+        for (Long userId : userIds)
+            Assertions.assertEquals(1, countCards(userId), "cards of user " + userId);
+    }
+
+    @Test
+    void issue_nonexistentUserInChunk_issuesCardsToOthers() throws Exception {
+        List<Long> userIds = createUsers("missing", 3);
+        long nonexistent = Collections.max(userIds) + 1000;
+        BulkCardIssueService service = new BulkCardIssueService(cardService, objectMapper);
+        ReflectionTestUtils.setField(service, "chunkSize", 2);
+        ReflectionTestUtils.setField(service, "parallelism", 1);
+        ReflectionTestUtils.invokeMethod(service, "init");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        service.issue(List.of(userIds.get(0), nonexistent, userIds.get(1), userIds.get(2)).iterator(), out);
+        ReflectionTestUtils.invokeMethod(service, "shutdown");
+
+        for (Long userId : userIds)
+            Assertions.assertEquals(1, countCards(userId), "cards of user " + userId);
+        String[] lines = out.toString(StandardCharsets.UTF_8).strip().split("\n");
+        JsonNode first = objectMapper.readTree(lines[0]);
+        Assertions.assertEquals(1, first.get("not_found").size());
+        Assertions.assertEquals(nonexistent, first.get("not_found").get(0).asLong());
+        Assertions.assertEquals(1, first.get("issued").asInt());
+        JsonNode summary = objectMapper.readTree(lines[lines.length - 1]);
+        Assertions.assertEquals(3, summary.get("issued").asInt());
+        Assertions.assertEquals(1, summary.get("not_found").asInt());
+        Assertions.assertEquals(0, summary.get("failed").asInt());
+    }
+
+    private List<Long> createUsers(String prefix, int count) {
+        List<Long> userIds = new ArrayList<>();
+        for (int i = 0; i < count; i++)
+            userIds.add(userRepository.save(User.builder()
+                    .username(prefix + i)
+                    .email(prefix + i + "@gmail.com")
+                    .password("password")
+                    .roles(List.of(Role.ROLE_USER))
+                    .isActive(true)
+                    .build()).getId());
+        return userIds;
+    }
+
+    private int countCards(Long userId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM cards WHERE user_id = ?", Integer.class, userId);
+    }
+}
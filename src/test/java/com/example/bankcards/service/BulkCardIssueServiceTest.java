@@ -0,0 +1,141 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.card.CardDto;
+import com.example.bankcards.dto.card.FirstCardsIssueDto;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BulkCardIssueServiceTest {
+    @Mock
+    private CardService cardService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private BulkCardIssueService bulkCardIssueService;
+
+    @BeforeEach
+    void setUp() {
+        bulkCardIssueService = new BulkCardIssueService(cardService, objectMapper);
+        ReflectionTestUtils.setField(bulkCardIssueService, "chunkSize", 2);
+        ReflectionTestUtils.setField(bulkCardIssueService, "parallelism", 2);
+        ReflectionTestUtils.invokeMethod(bulkCardIssueService, "init");
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(bulkCardIssueService, "shutdown");
+    }
+
+    @Test
+    void readCsv_skipsHeaderAndSplitsValues() {
+        String csv = "user_id\n1\n2,3\n\n4\n";
+
+        List<Long> ids = new ArrayList<>();
+        BulkCardIssueService.readCsv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)))
+                .forEachRemaining(ids::add);
+
+        Assertions.assertEquals(List.of(1L, 2L, 3L, 4L), ids);
+    }
+
+    @Test
+    void readCsv_invalidValue() {
+        Iterator<Long> ids = BulkCardIssueService.readCsv(
+                new ByteArrayInputStream("1\nabc\n".getBytes(StandardCharsets.UTF_8)));
+
+        Assertions.assertEquals(1L, ids.next());
+        Assertions.assertThrows(IllegalArgumentException.class, ids::hasNext);
+    }
+
+    @Test
+    void issue_writesProgressPerChunkAndSummary() throws Exception {
+        when(cardService.issueFirstCards(anyList())).thenAnswer(i -> {
+            List<Long> ids = i.getArgument(0);
+            // пользователь 2 уже имеет карту
+            return ids.contains(2L)
+                    ? new FirstCardsIssueDto(Map.of(1L, new CardDto("4000000000000001", "12/29", "123")), List.of())
+                    : new FirstCardsIssueDto(Map.of(3L, new CardDto("4000000000000002", "12/29", "456")), List.of());
+        });
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        bulkCardIssueService.issue(List.of(1L, 2L, 3L).iterator(), out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).strip().split("\n");
+        Assertions.assertEquals(3, lines.length);
+        JsonNode summary = objectMapper.readTree(lines[2]);
+        Assertions.assertEquals(2, summary.get("chunks").asInt());
+        Assertions.assertEquals(3, summary.get("requested").asInt());
+        Assertions.assertEquals(2, summary.get("issued").asInt());
+        Assertions.assertEquals(1, summary.get("skipped").asInt());
+        verify(cardService, times(2)).issueFirstCards(anyList());
+    }
+
+    @Test
+    void issue_dropsDuplicateIdsAcrossChunks() throws Exception {
+        when(cardService.issueFirstCards(anyList())).thenAnswer(i -> {
+            Map<Long, CardDto> cards = new HashMap<>();
+            for (Long id : i.<List<Long>>getArgument(0))
+                cards.put(id, new CardDto("400000000000000" + id, "12/29", "123"));
+            return new FirstCardsIssueDto(cards, List.of());
+        });
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        bulkCardIssueService.issue(List.of(1L, 2L, 1L, 3L, 2L).iterator(), out);
+
+        ArgumentCaptor<List<Long>> chunks = ArgumentCaptor.captor();
+        verify(cardService, times(2)).issueFirstCards(chunks.capture());
+        Assertions.assertEquals(List.of(1L, 2L, 3L), chunks.getAllValues().stream().flatMap(List::stream).sorted().toList());
+        String[] lines = out.toString(StandardCharsets.UTF_8).strip().split("\n");
+        JsonNode summary = objectMapper.readTree(lines[lines.length - 1]);
+        Assertions.assertEquals(5, summary.get("requested").asInt());
+        Assertions.assertEquals(3, summary.get("issued").asInt());
+        Assertions.assertEquals(2, summary.get("skipped").asInt());
+    }
+
+    @Test
+    void issue_reportsNotFoundUsersPerChunk() throws Exception {
+        when(cardService.issueFirstCards(anyList())).thenAnswer(i -> {
+            List<Long> ids = i.getArgument(0);
+            // пользователя 99 нет в базе
+            return ids.contains(99L)
+                    ? new FirstCardsIssueDto(Map.of(1L, new CardDto("4000000000000001", "12/29", "123")), List.of(99L))
+                    : new FirstCardsIssueDto(Map.of(3L, new CardDto("4000000000000002", "12/29", "456")), List.of());
+        });
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        bulkCardIssueService.issue(List.of(1L, 99L, 3L).iterator(), out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).strip().split("\n");
+        JsonNode first = objectMapper.readTree(lines[0]).get("chunk").asInt() == 0
+                ? objectMapper.readTree(lines[0]) : objectMapper.readTree(lines[1]);
+        Assertions.assertEquals(99L, first.get("notFound").get(0).asLong());
+        Assertions.assertEquals(0, first.get("skipped").asInt());
+        Assertions.assertNull(first.get("error").textValue());
+        JsonNode summary = objectMapper.readTree(lines[2]);
+        Assertions.assertEquals(2, summary.get("issued").asInt());
+        Assertions.assertEquals(1, summary.get("notFound").asInt());
+        Assertions.assertEquals(0, summary.get("skipped").asInt());
+        Assertions.assertEquals(0, summary.get("failed").asInt());
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.util.LuhnUtil;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigInteger;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CardNumberAllocatorTest {
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private CardNumberAllocator allocator;
+
+    @BeforeEach
+    void setUp() {
+        allocator = new CardNumberAllocator(jdbcTemplate, transactionManager);
+        ReflectionTestUtils.setField(allocator, "defaultBin", "400000");
+        ReflectionTestUtils.setField(allocator, "blockSize", 10);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void next_uniqueLuhnValidNumbersAcrossBlocks() {
+        when(jdbcTemplate.queryForObject(anyString(), any(RowMapper.class), eq("400000")))
+                .thenReturn(new long[]{0, 1_000_000_000L}, new long[]{10, 1_000_000_000L});
+
+        List<String> numbers = allocator.next(20);
+
+        Set<String> unique = new HashSet<>(numbers);
+        Assertions.assertEquals(20, unique.size());
+        numbers.forEach(number -> {
+            Assertions.assertEquals(16, number.length());
+            Assertions.assertTrue(number.startsWith("400000"));
+            Assertions.assertTrue(LuhnUtil.isValid(number));
+        });
+        verify(jdbcTemplate, times(2)).update(anyString(), any(), eq("400000"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void next_exhaustedRange() {
+        when(jdbcTemplate.queryForObject(anyString(), any(RowMapper.class), eq("400000")))
+                .thenReturn(new long[]{100, 100});
+
+        Assertions.assertThrows(IllegalStateException.class, () -> allocator.next());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void next_capacityNotCoprimeWithMultiplier() {
+        // множитель перестановки делится на 7: разные значения дали бы одинаковые номера
+        when(jdbcTemplate.queryForObject(anyString(), any(RowMapper.class), eq("400000")))
+                .thenReturn(new long[]{0, 7_000_000});
+
+        Assertions.assertThrows(IllegalStateException.class, () -> allocator.next());
+        verify(jdbcTemplate, never()).update(anyString(), any(), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void next_capacityExceedsAccountDigits() {
+        when(jdbcTemplate.queryForObject(anyString(), any(RowMapper.class), eq("400000")))
+                .thenReturn(new long[]{0, 1_000_000_001L});
+
+        Assertions.assertThrows(IllegalStateException.class, () -> allocator.next());
+    }
+
+    @Test
+    void format_largeCapacityDoesNotOverflow() {
+        // короткий BIN: 11 разрядов счета, произведение множителя на значение не помещается в long
+        long capacity = 99_999_999_999L;
+        CardNumberAllocator.validateCapacity("4000", capacity);
+
+        Set<String> numbers = new HashSet<>();
+        for (long value = capacity - 1000; value < capacity; value++) {
+            String number = CardNumberAllocator.format("4000", value, capacity);
+            Assertions.assertEquals(16, number.length());
+            Assertions.assertTrue(LuhnUtil.isValid(number));
+            numbers.add(number);
+        }
+        Assertions.assertEquals(1000, numbers.size());
+
+        long value = capacity - 1;
+        long expected = BigInteger.valueOf(0x5DEECE66DL).multiply(BigInteger.valueOf(value)).add(BigInteger.valueOf(0xB))
+                .mod(BigInteger.valueOf(capacity)).longValue();
+        Assertions.assertEquals(String.format("4000%011d", expected),
+                CardNumberAllocator.format("4000", value, capacity).substring(0, 15));
+    }
+}
@@ -1,23 +1,43 @@
 package com.example.bankcards.service;
 
 import com.example.bankcards.dto.card.BalanceResponseDto;
+import com.example.bankcards.dto.card.CardDto;
+import com.example.bankcards.dto.card.CardResponseDto;
+import com.example.bankcards.dto.page.CursorPageDto;
+import com.example.bankcards.dto.transaction.DepositRequestDto;
+import com.example.bankcards.dto.transaction.MoneyTransactionRequestDto;
+import com.example.bankcards.dto.transaction.MoneyTransactionResponseDto;
+import com.example.bankcards.dto.user.UserSnapshot;
 import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.LedgerEntryType;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.mapper.CardMapper;
+import com.example.bankcards.repository.CardJdbcRepository;
 import com.example.bankcards.repository.CardRepository;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.repository.projection.CardBalanceView;
 import com.example.bankcards.util.CardEncryptionUtil;
+import com.example.bankcards.util.CursorUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -31,41 +51,193 @@ public class CardServiceTest {
     @Mock
     private CardMapper cardMapper;
     @Mock
+    private UserSnapshotCache userSnapshotCache;
+    @Mock
+    private CardNumberAllocator cardNumberAllocator;
+    @Mock
+    private CardJdbcRepository cardJdbcRepository;
+    @Mock
+    private LedgerWriter ledgerWriter;
+    @Mock
     private UserDetails userDetails;
 
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    @Spy
+    private OperationMetrics operationMetrics = new OperationMetrics(meterRegistry);
+
     @InjectMocks
     private CardService cardService;
 
     @Test
     void getCardBalance_ok() {
-        User user = User.builder().id(1L).email("test@gmail.com").build();
-        Card card = Card.builder()
-                .id(1L)
-                .lastFourDigits("1234")
-                .balance(new BigDecimal("777"))
-                .user(user)
-                .build();
-
         when(userDetails.getUsername()).thenReturn("test@gmail.com");
-        when(userRepository.findByEmail("test@gmail.com")).thenReturn(Optional.of(user));
-        when(cardRepository.findByIdAndUserId(1L, 1L)).thenReturn(Optional.of(card));
+        when(cardRepository.findBalanceView(1L, "test@gmail.com"))
+                .thenReturn(Optional.of(new BalanceResponseDto(1L, "**** **** **** 1234", new BigDecimal("777"))));
 
         BalanceResponseDto result = cardService.getCardBalance(1L, userDetails);
 
         Assertions.assertNotNull(result);
         Assertions.assertEquals(new BigDecimal("777"), result.balance());
+        verifyNoInteractions(userSnapshotCache);
     }
 
     @Test
     void getCardBalance_cardNotFound() {
-        User user = User.builder().id(1L).email("test@gmail.com").build();
-
         when(userDetails.getUsername()).thenReturn("test@gmail.com");
-        when(userRepository.findByEmail("test@gmail.com")).thenReturn(Optional.of(user));
-        when(cardRepository.findByIdAndUserId(1L, 1L)).thenReturn(Optional.empty());
+        when(cardRepository.findBalanceView(1L, "test@gmail.com")).thenReturn(Optional.empty());
 
         Assertions.assertThrows(IllegalArgumentException.class, () -> {
             cardService.getCardBalance(1L, userDetails);
         });
     }
+
+    @Test
+    void transactionBetweenCards_ok() {
+        User user = User.builder().id(1L).email("test@gmail.com").build();
+
+        when(userDetails.getUsername()).thenReturn("test@gmail.com");
+        when(userSnapshotCache.getByEmail("test@gmail.com")).thenReturn(Optional.of(UserSnapshot.from(user)));
+        when(cardRepository.debit(eq(1L), eq(1L), eq(new BigDecimal("100")), any())).thenReturn(1);
+        when(cardRepository.credit(eq(2L), eq(1L), eq(new BigDecimal("100")), any())).thenReturn(1);
+        when(cardRepository.findBalancesByIdIn(List.of(1L, 2L))).thenReturn(List.of(
+                balance(1L, "1111", "400"), balance(2L, "2222", "600")));
+
+        MoneyTransactionResponseDto result = cardService.transactionBetweenCards(
+                new MoneyTransactionRequestDto(1L, 2L, null, new BigDecimal("100")), userDetails);
+
+        Assertions.assertEquals(new BigDecimal("400"), result.fromCardBalance());
+        Assertions.assertEquals(new BigDecimal("600"), result.toCardBalance());
+        Assertions.assertEquals("**** **** **** 2222", result.toCardMask());
+        verify(cardRepository, never()).findByIdAndUserId(any(), any());
+        verify(ledgerWriter).record(argThat(entry -> entry.getType() == LedgerEntryType.TRANSFER
+                && entry.getFromCardId() == 1L && entry.getToCardId() == 2L));
+    }
+
+    @Test
+    void transactionBetweenCards_insufficientFunds() {
+        User user = User.builder().id(1L).email("test@gmail.com").build();
+        Card fromCard = activeCard(2L, user, "50");
+        Card toCard = activeCard(1L, user, "0");
+
+        when(userDetails.getUsername()).thenReturn("test@gmail.com");
+        when(userSnapshotCache.getByEmail("test@gmail.com")).thenReturn(Optional.of(UserSnapshot.from(user)));
+        when(cardRepository.credit(eq(1L), eq(1L), any(), any())).thenReturn(1);
+        when(cardRepository.debit(eq(2L), eq(1L), any(), any())).thenReturn(0);
+        when(cardRepository.findByIdAndUserId(2L, 1L)).thenReturn(Optional.of(fromCard));
+        when(cardRepository.findByIdAndUserId(1L, 1L)).thenReturn(Optional.of(toCard));
+
+        IllegalArgumentException e = Assertions.assertThrows(IllegalArgumentException.class, () ->
+                cardService.transactionBetweenCards(
+                        new MoneyTransactionRequestDto(2L, 1L, null, new BigDecimal("100")), userDetails));
+        Assertions.assertTrue(e.getMessage().startsWith("Insufficient funds"));
+        Assertions.assertEquals(1, meterRegistry.get(OperationMetrics.CARD_OPERATION)
+                .tags("operation", "transfer", "outcome", OperationMetrics.INSUFFICIENT_FUNDS).timer().count());
+    }
+
+    @Test
+    void depositToCard_inactiveCard() {
+        User user = User.builder().id(1L).email("test@gmail.com").build();
+        Card card = activeCard(1L, user, "0");
+        card.setStatus(CardStatus.BLOCKED);
+
+        when(userDetails.getUsername()).thenReturn("test@gmail.com");
+        when(userSnapshotCache.getByEmail("test@gmail.com")).thenReturn(Optional.of(UserSnapshot.from(user)));
+        when(cardRepository.credit(eq(1L), eq(1L), any(), any())).thenReturn(0);
+        when(cardRepository.findByIdAndUserId(1L, 1L)).thenReturn(Optional.of(card));
+
+        Assertions.assertThrows(IllegalStateException.class, () ->
+                cardService.depositToCard(new DepositRequestDto(1L, BigDecimal.TEN), userDetails));
+        verify(cardRepository, never()).findBalancesByIdIn(any());
+        verifyNoInteractions(ledgerWriter);
+        Assertions.assertEquals(1, meterRegistry.get(OperationMetrics.CARD_OPERATION)
+                .tags("operation", "deposit", "outcome", OperationMetrics.INACTIVE).timer().count());
+    }
+
+    @Test
+    void findCardByNumber_ok() {
+        Card card = Card.builder().id(1L).lastFourDigits("1111").build();
+        CardResponseDto dto = new CardResponseDto(1L, "1111", "**** **** **** 1111", null, null, null);
+
+        when(cardEncryptionUtil.fingerprint("4000001234561111")).thenReturn("fp");
+        when(cardRepository.findByFingerprint("fp")).thenReturn(Optional.of(card));
+        when(cardMapper.toDto(card)).thenReturn(dto);
+
+        Assertions.assertEquals(dto, cardService.findCardByNumber("4000001234561111"));
+    }
+
+    @Test
+    void issueCards_skipsTakenNumbers() {
+        when(userRepository.findExistingIds(List.of(1L, 2L))).thenReturn(List.of(1L, 2L));
+        when(cardNumberAllocator.next(2)).thenReturn(List.of("4000000000000001", "4000000000000002"));
+        when(cardNumberAllocator.next(1)).thenReturn(List.of("4000000000000003"));
+        when(cardEncryptionUtil.fingerprint(anyString())).thenAnswer(i -> "fp" + i.getArgument(0));
+        when(cardRepository.findExistingFingerprints(anyCollection()))
+                .thenReturn(List.of("fp4000000000000002"), List.of());
+        when(cardEncryptionUtil.encryptAll(anyList())).thenAnswer(i -> i.getArgument(0));
+        when(cardEncryptionUtil.extractLastFourDigits(anyString())).thenReturn("0000");
+
+        List<CardDto> result = cardService.issueCards(List.of(1L, 2L));
+
+        Assertions.assertEquals(List.of("4000000000000001", "4000000000000003"),
+                result.stream().map(CardDto::cardNumber).toList());
+        verify(cardJdbcRepository).insertAll(argThat(cards -> cards.size() == 2));
+    }
+
+    @Test
+    void issueCards_userNotFound() {
+        when(userRepository.findExistingIds(List.of(1L, 2L))).thenReturn(List.of(1L));
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> cardService.issueCards(List.of(1L, 2L)));
+        verifyNoInteractions(cardJdbcRepository);
+    }
+
+    @Test
+    void getCardsByUserAfter_capsLimitAndReturnsCursor() {
+        ReflectionTestUtils.setField(cardService, "defaultPageSize", 20);
+        ReflectionTestUtils.setField(cardService, "maxPageSize", 2);
+        when(userDetails.getUsername()).thenReturn("test@gmail.com");
+        when(cardRepository.findCardViewsByUserEmailAfter("test@gmail.com", 0L, Limit.of(3))).thenReturn(List.of(
+                cardView(1L), cardView(2L), cardView(3L)));
+
+        CursorPageDto<CardResponseDto> page = cardService.getCardsByUserAfter(userDetails, null, 50);
+
+        Assertions.assertEquals(List.of(1L, 2L), page.items().stream().map(CardResponseDto::id).toList());
+        Assertions.assertEquals(CursorUtil.encode(2L), page.nextCursor());
+        verifyNoInteractions(cardMapper);
+    }
+
+    private static CardResponseDto cardView(Long id) {
+        return new CardResponseDto(id, "1234", "**** **** **** 1234", LocalDate.now().plusYears(1),
+                CardStatus.ACTIVE, BigDecimal.ZERO);
+    }
+
+    private static Card activeCard(Long id, User user, String balance) {
+        return Card.builder()
+                .id(id)
+                .lastFourDigits("1234")
+                .user(user)
+                .status(CardStatus.ACTIVE)
+                .expirationDate(LocalDate.now().plusYears(1))
+                .balance(new BigDecimal(balance))
+                .build();
+    }
+
+    private static CardBalanceView balance(Long id, String lastFourDigits, String balance) {
+        return new CardBalanceView() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getLastFourDigits() {
+                return lastFourDigits;
+            }
+
+            @Override
+            public BigDecimal getBalance() {
+                return new BigDecimal(balance);
+            }
+        };
+    }
 }
@@ -0,0 +1,120 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.transaction.MoneyTransactionRequestDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Нагрузочный тест переводов на H2: 64 потока переводят деньги между одними и теми же картами.
+ * Сумма балансов должна сохраниться, балансы не должны уйти в минус, взаимоблокировок быть не должно,
+ * а каждый выполненный перевод должен попасть в журнал операций.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+public class CardTransferConcurrencyTest {
+    private static final int THREADS = 64;
+    private static final int TRANSFERS_PER_THREAD = 25;
+    private static final int CARDS = 6;
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000.00");
+
+    @Autowired
+    private CardService cardService;
+    @Autowired
+    private CardRepository cardRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void transfers_conserveTotalBalanceUnderConcurrency() throws Exception {
+        User user = userRepository.save(User.builder()
+                .username("stress")
+                .email("stress@gmail.com")
+                .password("password")
+                .roles(List.of(Role.ROLE_USER))
+                .isActive(true)
+                .build());
+        List<Long> cardIds = new ArrayList<>();
+        for (int i = 0; i < CARDS; i++)
+            cardIds.add(cardRepository.save(Card.builder()
+                    .encryptedNumber("stress-card-" + i)
+                    .lastFourDigits(String.format("%04d", i))
+                    .user(user)
+                    .expirationDate(LocalDate.now().plusYears(1))
+                    .status(CardStatus.ACTIVE)
+                    .balance(INITIAL_BALANCE)
+                    .build()).getId());
+        UserDetails userDetails = org.springframework.security.core.userdetails.User.withUsername("stress@gmail.com")
+                .password("password")
+                .authorities("ROLE_USER")
+                .build();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        for (int t = 0; t < THREADS; t++) {
+            executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                    for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                        int from = random.nextInt(CARDS);
+                        int to = (from + 1 + random.nextInt(CARDS - 1)) % CARDS;
+                        BigDecimal amount = BigDecimal.valueOf(random.nextInt(1, 400));
+                        try {
+                            cardService.transactionBetweenCards(new MoneyTransactionRequestDto(
+                                    cardIds.get(from), cardIds.get(to), null, amount), userDetails);
+                            completed.incrementAndGet();
+                        } catch (IllegalArgumentException e) {
+                            // недостаточно средств
+                            rejected.incrementAndGet();
+                        }
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        Assertions.assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES), "transfers did not finish");
+
+        Assertions.assertTrue(failures.isEmpty(), () -> "unexpected failures: " + failures);
+        Assertions.assertEquals(THREADS * TRANSFERS_PER_THREAD, completed.get() + rejected.get());
+        List<Card> cards = cardRepository.findAllById(cardIds);
+        BigDecimal total = cards.stream().map(Card::getBalance).reduce(BigDecimal.ZERO, BigDecimal::add);
+        Assertions.assertEquals(0, INITIAL_BALANCE.multiply(BigDecimal.valueOf(CARDS)).compareTo(total));
+        cards.forEach(card -> Assertions.assertTrue(card.getBalance().signum() >= 0));
+        Assertions.assertTrue(completed.get() > 0);
+        // журнал пишется в той же транзакции: ровно одна запись на выполненный перевод
+        Assertions.assertEquals(completed.get(), jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM transactions WHERE type = 'TRANSFER'", Integer.class));
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Выгрузка на H2: фильтры по статусу и сроку действия, формат строк NDJSON и CSV
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+public class ExportServiceTest {
+    @Autowired
+    private ExportService exportService;
+    @Autowired
+    private CardRepository cardRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void exportCards_filtersByStatusAndExpiration() {
+        User user = userRepository.save(User.builder()
+                .username("export")
+                .email("export@gmail.com")
+                .password("password")
+                .roles(List.of(Role.ROLE_USER, Role.ROLE_ADMIN))
+                .isActive(true)
+                .build());
+        LocalDate expiration = LocalDate.of(2031, 6, 30);
+        Card active = cardRepository.save(card(user, "export-1", "1111", CardStatus.ACTIVE, expiration));
+        cardRepository.save(card(user, "export-2", "2222", CardStatus.BLOCKED, expiration));
+        cardRepository.save(card(user, "export-3", "3333", CardStatus.ACTIVE, expiration.plusYears(1)));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long count = exportService.exportCards(CardStatus.ACTIVE, expiration.minusDays(1), expiration,
+                ExportFormat.CSV, out);
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        Assertions.assertEquals(1, count);
+        Assertions.assertEquals("id,last_four_digits,masked_number,expiration_date,status,balance", lines.get(0));
+        Assertions.assertEquals(active.getId() + ",1111,**** **** **** 1111,2031-06-30,ACTIVE,10.00", lines.get(1));
+
+        out.reset();
+        exportService.exportUsers(ExportFormat.NDJSON, out);
+
+        String users = out.toString(StandardCharsets.UTF_8);
+        Assertions.assertTrue(users.contains("\"email\":\"export@gmail.com\""), users);
+        Assertions.assertTrue(users.contains("\"roles\":[\"ROLE_USER\",\"ROLE_ADMIN\"]"), users);
+    }
+
+    private static Card card(User user, String encryptedNumber, String lastFourDigits,
+                             CardStatus status, LocalDate expirationDate) {
+        return Card.builder()
+                .encryptedNumber(encryptedNumber)
+                .lastFourDigits(lastFourDigits)
+                .user(user)
+                .status(status)
+                .expirationDate(expirationDate)
+                .balance(new BigDecimal("10.00"))
+                .build();
+    }
+}
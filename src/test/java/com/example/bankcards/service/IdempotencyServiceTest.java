@@ -0,0 +1,159 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.transaction.DepositRequestDto;
+import com.example.bankcards.dto.transaction.DepositResponseDto;
+import com.example.bankcards.dto.user.UserSnapshot;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.IdempotencyKeyConflictException;
+import com.example.bankcards.repository.IdempotencyKeyRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class IdempotencyServiceTest {
+    @Mock
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+    @Mock
+    private UserSnapshotCache userSnapshotCache;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private IdempotencyService idempotencyService;
+
+    private final DepositRequestDto request = new DepositRequestDto(1L, BigDecimal.TEN);
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = newService();
+    }
+
+    private IdempotencyService newService() {
+        ObjectMapper objectMapper = new ObjectMapper()
+                .findAndRegisterModules()
+                .setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE);
+        IdempotencyService service = new IdempotencyService(idempotencyKeyRepository, userSnapshotCache,
+                transactionTemplate, objectMapper, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "ttl", 60_000L);
+        ReflectionTestUtils.setField(service, "cacheSize", 100L);
+        ReflectionTestUtils.setField(service, "purgeBatchSize", 2);
+        service.init();
+        return service;
+    }
+
+    @Test
+    void execute_withoutKeyRunsAction() {
+        AtomicInteger calls = new AtomicInteger();
+
+        idempotencyService.execute(null, "test@gmail.com", "deposit", request, DepositResponseDto.class,
+                deposit(calls));
+
+        Assertions.assertEquals(1, calls.get());
+        verifyNoInteractions(idempotencyKeyRepository, transactionTemplate);
+    }
+
+    @Test
+    void execute_repeatReturnsStoredResponseFromMemory() {
+        mockUserAndTransaction();
+        when(idempotencyKeyRepository.reserve(eq(1L), eq("key-1"), anyString(), any(), any())).thenReturn(true);
+        AtomicInteger calls = new AtomicInteger();
+
+        DepositResponseDto first = idempotencyService.execute("key-1", "test@gmail.com", "deposit", request,
+                DepositResponseDto.class, deposit(calls));
+        DepositResponseDto second = idempotencyService.execute("key-1", "test@gmail.com", "deposit", request,
+                DepositResponseDto.class, deposit(calls));
+
+        Assertions.assertEquals(1, calls.get());
+        Assertions.assertEquals(first, second);
+        verify(idempotencyKeyRepository).complete(eq(1L), eq("key-1"), contains("\"new_balance\""));
+        verify(transactionTemplate, times(1)).execute(any());
+    }
+
+    @Test
+    void execute_repeatReturnsStoredResponseFromDatabase() {
+        mockUserAndTransaction();
+        when(idempotencyKeyRepository.reserve(eq(1L), eq("key-1"), anyString(), any(), any())).thenReturn(true);
+        AtomicInteger calls = new AtomicInteger();
+        DepositResponseDto first = idempotencyService.execute("key-1", "test@gmail.com", "deposit", request,
+                DepositResponseDto.class, deposit(calls));
+        var hash = ArgumentCaptor.forClass(String.class);
+        var response = ArgumentCaptor.forClass(String.class);
+        verify(idempotencyKeyRepository).reserve(eq(1L), eq("key-1"), hash.capture(), any(), any());
+        verify(idempotencyKeyRepository).complete(eq(1L), eq("key-1"), response.capture());
+
+        // другой узел: в памяти ответа нет, ключ в базе уже занят
+        IdempotencyService otherNode = newService();
+        when(idempotencyKeyRepository.reserve(eq(1L), eq("key-1"), anyString(), any(), any())).thenReturn(false);
+        when(idempotencyKeyRepository.find(1L, "key-1")).thenReturn(Optional.of(new IdempotencyKeyRepository.StoredRequest(
+                hash.getValue(), response.getValue(), LocalDateTime.now().plusMinutes(1))));
+
+        DepositResponseDto replayed = otherNode.execute("key-1", "test@gmail.com", "deposit", request,
+                DepositResponseDto.class, deposit(calls));
+
+        Assertions.assertEquals(1, calls.get());
+        Assertions.assertEquals(first, replayed);
+    }
+
+    @Test
+    void execute_keyReusedWithDifferentRequest() {
+        mockUserAndTransaction();
+        when(idempotencyKeyRepository.reserve(eq(1L), eq("key-1"), anyString(), any(), any())).thenReturn(true);
+        AtomicInteger calls = new AtomicInteger();
+        idempotencyService.execute("key-1", "test@gmail.com", "deposit", request, DepositResponseDto.class,
+                deposit(calls));
+
+        Assertions.assertThrows(IdempotencyKeyConflictException.class, () ->
+                idempotencyService.execute("key-1", "test@gmail.com", "deposit",
+                        new DepositRequestDto(1L, BigDecimal.ONE), DepositResponseDto.class, deposit(calls)));
+        Assertions.assertEquals(1, calls.get());
+    }
+
+    @Test
+    void purgeExpired_deletesInBatches() {
+        when(idempotencyKeyRepository.deleteExpired(any(), eq(2))).thenReturn(2, 2, 1);
+
+        Assertions.assertEquals(5, idempotencyService.purgeExpired());
+        verify(idempotencyKeyRepository, times(3)).deleteExpired(any(), eq(2));
+    }
+
+    private void mockUserAndTransaction() {
+        User user = User.builder().id(1L).email("test@gmail.com").build();
+        when(userSnapshotCache.getByEmail("test@gmail.com")).thenReturn(Optional.of(UserSnapshot.from(user)));
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    private static Supplier<DepositResponseDto> deposit(AtomicInteger calls) {
+        return () -> {
+            calls.incrementAndGet();
+            return DepositResponseDto.builder()
+                    .success(true)
+                    .message("Replenishment")
+                    .cardId(1L)
+                    .cardMask("**** **** **** 1234")
+                    .amount(BigDecimal.TEN)
+                    .newBalance(new BigDecimal("110"))
+                    .timestamp(LocalDateTime.of(2025, 1, 1, 12, 0))
+                    .build();
+        };
+    }
+}
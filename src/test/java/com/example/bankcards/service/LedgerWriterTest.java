@@ -0,0 +1,86 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.LedgerEntry;
+import com.example.bankcards.entity.LedgerEntryType;
+import com.example.bankcards.repository.LedgerJdbcRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class LedgerWriterTest {
+    @Mock
+    private LedgerJdbcRepository ledgerJdbcRepository;
+
+    @InjectMocks
+    private LedgerWriter ledgerWriter;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(ledgerWriter, "enabled", true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive())
+            TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void record_withoutTransactionInsertsImmediately() {
+        LedgerEntry entry = entry(1L);
+
+        ledgerWriter.record(entry);
+
+        verify(ledgerJdbcRepository).insertAll(List.of(entry));
+    }
+
+    @Test
+    void record_insideTransactionFlushesOneBatchBeforeCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        LedgerEntry first = entry(1L);
+        LedgerEntry second = entry(2L);
+
+        ledgerWriter.record(first);
+        ledgerWriter.record(second);
+        verifyNoInteractions(ledgerJdbcRepository);
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        synchronizations.forEach(s -> s.beforeCommit(false));
+        synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        verify(ledgerJdbcRepository).insertAll(List.of(first, second));
+    }
+
+    @Test
+    void record_disabled() {
+        ReflectionTestUtils.setField(ledgerWriter, "enabled", false);
+
+        ledgerWriter.record(entry(1L));
+
+        verify(ledgerJdbcRepository, never()).insertAll(any());
+    }
+
+    private static LedgerEntry entry(Long toCardId) {
+        return LedgerEntry.builder()
+                .type(LedgerEntryType.DEPOSIT)
+                .toCardId(toCardId)
+                .amount(BigDecimal.TEN)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.bankcards.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TokenPurgeJobTest {
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private TokenPurgeJob tokenPurgeJob;
+
+    @BeforeEach
+    void setUp() {
+        tokenPurgeJob = new TokenPurgeJob(jdbcTemplate, meterRegistry);
+        ReflectionTestUtils.setField(tokenPurgeJob, "batchSize", 2);
+        ReflectionTestUtils.setField(tokenPurgeJob, "maxBatches", 10);
+        ReflectionTestUtils.setField(tokenPurgeJob, "pause", 0L);
+        ReflectionTestUtils.invokeMethod(tokenPurgeJob, "init");
+    }
+
+    @Test
+    void purge_deletesInBatchesUntilShortBatch() {
+        when(jdbcTemplate.update(anyString(), any(Timestamp.class), eq(2))).thenReturn(2, 2, 1);
+
+        long purged = tokenPurgeJob.purge();
+
+        Assertions.assertEquals(5, purged);
+        Assertions.assertEquals(5.0, meterRegistry.get("tokens.purged").counter().count());
+        verify(jdbcTemplate, times(3)).update(anyString(), any(Timestamp.class), eq(2));
+    }
+
+    @Test
+    void purge_stopsAtMaxBatchesAndReportsLag() {
+        ReflectionTestUtils.setField(tokenPurgeJob, "maxBatches", 2);
+        when(jdbcTemplate.update(anyString(), any(Timestamp.class), eq(2))).thenReturn(2);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Timestamp.class), any(Timestamp.class)))
+                .thenReturn(Timestamp.valueOf(LocalDateTime.now().minusMinutes(1)));
+
+        Assertions.assertEquals(4, tokenPurgeJob.purge());
+        Assertions.assertTrue(meterRegistry.get("tokens.purge.lag").gauge().value() >= 59);
+    }
+}
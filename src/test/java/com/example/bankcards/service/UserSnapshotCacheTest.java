@@ -0,0 +1,89 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.user.UserSnapshot;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.repository.projection.UserChangeView;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class UserSnapshotCacheTest {
+    @Mock
+    private UserRepository userRepository;
+
+    private UserSnapshotCache userSnapshotCache;
+
+    @BeforeEach
+    void setUp() {
+        userSnapshotCache = new UserSnapshotCache(userRepository, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(userSnapshotCache, "ttl", 300_000L);
+        ReflectionTestUtils.setField(userSnapshotCache, "maxSize", 100L);
+        ReflectionTestUtils.invokeMethod(userSnapshotCache, "init");
+    }
+
+    @Test
+    void sync_userBlockedOnAnotherNode_evictsSnapshot() {
+        String email = "email@gmail.com";
+        when(userRepository.findByEmail(email)).thenReturn(
+                Optional.of(user(email, true)),
+                Optional.of(user(email, false)));
+        Assertions.assertTrue(userSnapshotCache.getByEmail(email).map(UserSnapshot::active).orElseThrow());
+
+        when(userRepository.findChangedSince(any())).thenReturn(List.of(changed(1L, email)));
+        userSnapshotCache.sync();
+
+        Assertions.assertFalse(userSnapshotCache.getByEmail(email).map(UserSnapshot::active).orElseThrow());
+        verify(userRepository, times(2)).findByEmail(email);
+    }
+
+    @Test
+    void sync_nothingChanged_keepsSnapshot() {
+        String email = "email@gmail.com";
+        when(userRepository.findByEmail(email)).thenReturn(Optional.of(user(email, true)));
+        userSnapshotCache.getByEmail(email);
+
+        when(userRepository.findChangedSince(any())).thenReturn(List.of());
+        userSnapshotCache.sync();
+        userSnapshotCache.getByEmail(email);
+
+        verify(userRepository, times(1)).findByEmail(email);
+    }
+
+    private static User user(String email, boolean active) {
+        return User.builder()
+                .id(1L)
+                .email(email)
+                .password("password")
+                .roles(List.of(Role.ROLE_USER))
+                .isActive(active)
+                .build();
+    }
+
+    private static UserChangeView changed(Long id, String email) {
+        return new UserChangeView() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getEmail() {
+                return email;
+            }
+        };
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.bankcards.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class CardEncryptionUtilTest {
+    private CardEncryptionUtil cardEncryptionUtil;
+
+    @BeforeEach
+    void setUp() {
+        cardEncryptionUtil = new CardEncryptionUtil(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(cardEncryptionUtil, "secret", "test-card-secret");
+        ReflectionTestUtils.setField(cardEncryptionUtil, "fingerprintSecret", "test-fingerprint-secret");
+        ReflectionTestUtils.invokeMethod(cardEncryptionUtil, "init");
+    }
+
+    @Test
+    void encryptDecrypt_ok() {
+        String encrypted = cardEncryptionUtil.encryptCardNumber("4111111111111111");
+
+        Assertions.assertNotEquals("4111111111111111", encrypted);
+        Assertions.assertEquals(encrypted, cardEncryptionUtil.encryptCardNumber("4111111111111111"));
+        Assertions.assertEquals("4111111111111111", cardEncryptionUtil.decryptCardNumber(encrypted));
+    }
+
+    @Test
+    void encryptAllDecryptAll_ok() {
+        List<String> values = Arrays.asList("4111111111111111", null, "123");
+
+        List<String> encrypted = cardEncryptionUtil.encryptAll(values);
+
+        Assertions.assertEquals(cardEncryptionUtil.encryptValue("123"), encrypted.get(2));
+        Assertions.assertNull(encrypted.get(1));
+        Assertions.assertEquals(values, cardEncryptionUtil.decryptAll(encrypted));
+    }
+
+    @Test
+    void decrypt_invalidInputDoesNotBreakCipher() {
+        String encrypted = cardEncryptionUtil.encryptCardNumber("4111111111111111");
+
+        Assertions.assertThrows(RuntimeException.class, () -> cardEncryptionUtil.decryptCardNumber("AAAA"));
+        Assertions.assertEquals("4111111111111111", cardEncryptionUtil.decryptCardNumber(encrypted));
+    }
+
+    @Test
+    void fingerprint_deterministicAndDistinct() {
+        String fingerprint = cardEncryptionUtil.fingerprint("4111111111111111");
+
+        Assertions.assertEquals(64, fingerprint.length());
+        Assertions.assertEquals(fingerprint, cardEncryptionUtil.fingerprint("4111111111111111"));
+        Assertions.assertNotEquals(fingerprint, cardEncryptionUtil.fingerprint("4111111111111112"));
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.bankcards.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class CursorUtilTest {
+
+    @Test
+    void decode_roundTrip() {
+        Assertions.assertEquals(42L, CursorUtil.decode(CursorUtil.encode(42L)));
+        Assertions.assertEquals(0L, CursorUtil.decode(null));
+    }
+
+    @Test
+    void decode_invalidCursor() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> CursorUtil.decode("42"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> CursorUtil.decode("!!!"));
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.bankcards.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class LockFreePoolTest {
+
+    @Test
+    void borrow_reusesReleasedObject() {
+        AtomicInteger created = new AtomicInteger();
+        LockFreePool<Object> pool = new LockFreePool<>(2, () -> {
+            created.incrementAndGet();
+            return new Object();
+        });
+
+        Object first = pool.borrow();
+        pool.release(first);
+
+        Assertions.assertSame(first, pool.borrow());
+        Assertions.assertEquals(1, created.get());
+    }
+
+    @Test
+    void release_dropsObjectWhenFull() {
+        LockFreePool<Object> pool = new LockFreePool<>(1, Object::new);
+        Object first = pool.borrow();
+        Object second = pool.borrow();
+
+        pool.release(first);
+        pool.release(second);
+
+        Assertions.assertSame(first, pool.borrow());
+        Assertions.assertNotSame(second, pool.borrow());
+    }
+
+    @Test
+    void borrow_neverSharesObjectAcrossVirtualThreads() throws InterruptedException {
+        LockFreePool<AtomicInteger> pool = new LockFreePool<>(4, AtomicInteger::new);
+        AtomicInteger shared = new AtomicInteger();
+        Thread[] threads = new Thread[64];
+        for (int i = 0; i < threads.length; i++)
+            threads[i] = Thread.ofVirtual().start(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    AtomicInteger owner = pool.borrow();
+                    if (owner.incrementAndGet() != 1)
+                        shared.incrementAndGet();
+                    owner.decrementAndGet();
+                    pool.release(owner);
+                }
+            });
+        for (Thread thread : threads)
+            thread.join();
+
+        Assertions.assertEquals(0, shared.get());
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.bankcards.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class LuhnUtilTest {
+
+    @Test
+    void checkDigit_ok() {
+        Assertions.assertEquals(1, LuhnUtil.checkDigit("411111111111111"));
+        Assertions.assertEquals(3, LuhnUtil.checkDigit("7992739871"));
+    }
+
+    @Test
+    void isValid_ok() {
+        Assertions.assertTrue(LuhnUtil.isValid("4111111111111111"));
+        Assertions.assertFalse(LuhnUtil.isValid("4111111111111112"));
+        Assertions.assertFalse(LuhnUtil.isValid("41111111111111a1"));
+        Assertions.assertFalse(LuhnUtil.isValid(null));
+    }
+}